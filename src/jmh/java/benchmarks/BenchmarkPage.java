@@ -0,0 +1,33 @@
+package benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import pages.BasePage;
+
+import java.util.List;
+
+// Exposes BasePage's protected helpers to the benchmarks.
+public class BenchmarkPage extends BasePage {
+    private static final List<By> CART_TOTAL_CANDIDATES = List.of(
+        By.cssSelector(".grand-total"),
+        By.cssSelector("#totals_table tr:last-child td:last-child"),
+        By.xpath("//td[contains(text(),'Total')]/following-sibling::td"));
+
+    public BenchmarkPage(WebDriver driver) {
+        super(driver);
+    }
+
+    public List<ElementSnapshot> snapshotProductLinks() {
+        return snapshotElements(".product-thumb h4 a, .name a", "href");
+    }
+
+    // Every candidate misses on the fake driver, so this measures the full fallback walk.
+    public String findCartTotal() {
+        return findWithFallback("cartTotal", CART_TOTAL_CANDIDATES,
+            locator -> driver.findElements(locator).isEmpty() ? null : "found");
+    }
+
+    public void awaitPageLoad() {
+        waitForPageLoad();
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.CSVUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Reads testdata.csv from the project directory, the same file the tests use.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVUtilsBenchmark {
+    @Benchmark
+    public Map<String, String> getRandomUserData() {
+        return CSVUtils.getRandomUserData();
+    }
+
+    @Benchmark
+    public Map<String, String> getUserDataForNegativeTest() {
+        return CSVUtils.getUserDataForNegativeTest();
+    }
+}
@@ -0,0 +1,183 @@
+package benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// In-memory WebDriver that answers the page-object scripts with canned results, so the Java side of
+// the page helpers can be measured without a browser. Elements are never real, only placeholders.
+public class FakeWebDriver implements WebDriver, JavascriptExecutor {
+    private final List<Map<String, Object>> snapshotResult = new ArrayList<>();
+    private final Map<String, Object> performanceResult = new HashMap<>();
+    private int commandCount = 0;
+
+    public FakeWebDriver(int productLinks) {
+        for (int i = 0; i < productLinks; i++) {
+            Map<String, Object> link = new HashMap<>();
+            link.put("element", null);
+            link.put("tag", "a");
+            link.put("visible", i % 4 != 0);
+            link.put("enabled", true);
+            link.put("text", i % 4 != 0 ? "Product " + i : "");
+            link.put("attributes", Map.of("href", "index.php?rt=product/product&product_id=" + (50 + i)));
+            link.put("x", 10.0 * i);
+            link.put("y", 200L);
+            link.put("width", 180L);
+            link.put("height", 24L);
+            snapshotResult.add(link);
+        }
+        performanceResult.put("ttfb", 120.5);
+        performanceResult.put("domContentLoaded", 640L);
+        performanceResult.put("load", 1210.25);
+        performanceResult.put("lcp", 980.0);
+        performanceResult.put("cls", 0.02);
+        performanceResult.put("resources", 42L);
+    }
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        commandCount++;
+        if (script.contains("getBoundingClientRect")) {
+            return snapshotResult;
+        }
+        if (script.contains("__pagePerformanceCaptured")) {
+            return performanceResult;
+        }
+        if (script.contains("document.readyState")) {
+            return "complete";
+        }
+        return null;
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        commandCount++;
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public void get(String url) {
+        commandCount++;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        commandCount++;
+        return "https://automationteststore.com/index.php?rt=product/category&path=36";
+    }
+
+    @Override
+    public String getTitle() {
+        commandCount++;
+        return "Makeup";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        commandCount++;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        commandCount++;
+        throw new NoSuchElementException("FakeWebDriver has no DOM: " + by);
+    }
+
+    @Override
+    public String getPageSource() {
+        return "<html></html>";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void quit() {
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Set.of("fake-window");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return "fake-window";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("FakeWebDriver does not switch targets");
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException("FakeWebDriver does not navigate");
+    }
+
+    @Override
+    public Options manage() {
+        return new FakeOptions();
+    }
+
+    private static class FakeOptions implements Options {
+        @Override
+        public void addCookie(Cookie cookie) {
+        }
+
+        @Override
+        public void deleteCookieNamed(String name) {
+        }
+
+        @Override
+        public void deleteCookie(Cookie cookie) {
+        }
+
+        @Override
+        public void deleteAllCookies() {
+        }
+
+        @Override
+        public Set<Cookie> getCookies() {
+            return Set.of();
+        }
+
+        @Override
+        public Cookie getCookieNamed(String name) {
+            return null;
+        }
+
+        @Override
+        public Timeouts timeouts() {
+            throw new UnsupportedOperationException("FakeWebDriver has no timeouts");
+        }
+
+        @Override
+        public Window window() {
+            throw new UnsupportedOperationException("FakeWebDriver has no window");
+        }
+
+        @Override
+        public Logs logs() {
+            throw new UnsupportedOperationException("FakeWebDriver has no logs");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.LoadEngine;
+import utils.StubStorefront;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// How many journeys a crowd of virtual users gets through against the local stub storefront, so
+// the load engine's own overhead shows up without a network in between. Each invocation is one
+// short load run; the journeys and failedJourneys counters add up what each iteration's runs did.
+// The JDK server closes idle connections beyond 200, and HttpClient does not retry a POST that went
+// out on one of those, so a run fails only when more than 1% of its journeys do.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoadEngineBenchmark {
+    @Param({"300"})
+    public int users;
+
+    private StubStorefront storefront;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Journeys {
+        public long journeys;
+        public long failedJourneys;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            journeys = 0;
+            failedJourneys = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startStorefront() throws IOException {
+        storefront = StubStorefront.journey();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStorefront() {
+        storefront.close();
+    }
+
+    @Benchmark
+    public double loadRun(Journeys counters) throws InterruptedException {
+        LoadEngine engine = new LoadEngine(storefront.url("/shop/"), users, Duration.ZERO, Duration.ofSeconds(2),
+            Duration.ZERO);
+        engine.run();
+        counters.journeys += engine.getCompletedJourneys();
+        counters.failedJourneys += engine.getFailedJourneys();
+        if (engine.getFailedJourneys() > engine.getCompletedJourneys() / 100) {
+            throw new IllegalStateException("failed " + engine.getFailedJourneys() + " of " +
+                engine.getCompletedJourneys() + " journeys");
+        }
+        return engine.getErrorRate();
+    }
+}
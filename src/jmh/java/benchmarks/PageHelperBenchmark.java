@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pages.BasePage;
+import pages.CategoryPage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Page-object overhead on top of WebDriver: result decoding, fallback ordering, PageFactory setup.
+// Performance capture is off so millions of fake page loads do not pile up in PagePerformance.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dperf.capture=false", "-Ddom.fingerprint=false"})
+public class PageHelperBenchmark {
+    @Param({"12", "60"})
+    public int productLinks;
+
+    private FakeWebDriver driver;
+    private BenchmarkPage page;
+
+    @Setup
+    public void createPage() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        driver = new FakeWebDriver(productLinks);
+        page = new BenchmarkPage(driver);
+    }
+
+    @Benchmark
+    public List<BasePage.ElementSnapshot> snapshotElements() {
+        return page.snapshotProductLinks();
+    }
+
+    @Benchmark
+    public String findWithFallbackAllMiss() {
+        return page.findCartTotal();
+    }
+
+    @Benchmark
+    public void waitForPageLoad() {
+        page.awaitPageLoad();
+    }
+
+    @Benchmark
+    public CategoryPage newCategoryPage() {
+        return new CategoryPage(driver);
+    }
+}
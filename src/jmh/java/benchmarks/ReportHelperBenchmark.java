@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.Money;
+import utils.ReportHelper;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The cart ledger is thread-local, so the state is per benchmark thread and filled on that thread.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportHelperBenchmark {
+    @Param({"3", "20"})
+    public int products;
+
+    @Setup
+    public void fillLedger() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ReportHelper.reset();
+        for (int i = 0; i < products; i++) {
+            ReportHelper.addProductToReport("Product " + (i % 5), String.format("$1,%03d.99", 200 + i),
+                "https://automationteststore.com/index.php?rt=product/product&product_id=" + i);
+        }
+    }
+
+    @Benchmark
+    public Money calculateExpectedTotal() {
+        return ReportHelper.calculateExpectedTotal();
+    }
+
+    @Benchmark
+    public long parsePrice() {
+        return Money.parseCents("$1,234.50");
+    }
+
+    @Benchmark
+    public Map<String, String> getAddedProducts() {
+        return ReportHelper.getAddedProducts();
+    }
+
+    @Benchmark
+    public boolean validateCartTotal() {
+        return ReportHelper.validateCartTotal("$24,180.00");
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.TestDataStore;
+import utils.UserDataGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Time to map and index a generated file in testdata.csv's layout. open() keeps one store per path,
+// so every invocation opens a fresh hard link to the file. The file is written once per trial and
+// usually sits in the page cache, so this measures the indexing pass rather than the disk.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TestDataStoreBenchmark {
+    @Param({"2000000"})
+    public long rows;
+
+    private Path directory;
+    private Path file;
+    private Path link;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        directory = Files.createTempDirectory("testdata-bench");
+        file = directory.resolve("testdata.csv");
+        new UserDataGenerator(42).writeCsv(file, rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void linkFile() throws IOException {
+        link = Files.createLink(directory.resolve("testdata-" + (invocation++) + ".csv"), file);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        for (int i = 0; i < invocation; i++) {
+            Files.deleteIfExists(directory.resolve("testdata-" + i + ".csv"));
+        }
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int indexFile() throws IOException {
+        return TestDataStore.open(link.toString()).getRowCount();
+    }
+}
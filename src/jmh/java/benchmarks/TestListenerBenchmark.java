@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.TestListener;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Measures the caller-side cost of logging; the background writer prints to a discarded stream.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestListenerBenchmark {
+    private long counter = 0;
+
+    @Setup
+    public void discardConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public void log() {
+        TestListener.log("[PRODUCT] Name: Benchmark Product | Price: $12.50 | Iteration: " + counter++);
+    }
+
+    @Benchmark
+    public void logProductInfo() {
+        TestListener.logProductInfo("Benchmark Product", "$1,234.50",
+            "https://automationteststore.com/index.php?rt=product/product&product_id=50");
+    }
+
+    // DEBUG is off by default, so this is the cost of a suppressed call.
+    @Benchmark
+    public void debugSuppressed() {
+        TestListener.debug(() -> "Cart rows: " + counter++);
+    }
+}
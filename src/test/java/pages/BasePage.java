@@ -1,18 +1,150 @@
 package pages;
 
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.By;
+import utils.CommandStats;
 import utils.ConfigReader;
+import utils.DomFingerprint;
+import utils.LocatorRegistry;
+import utils.LogLevel;
+import utils.PagePerformance;
+import utils.TestListener;
+import utils.VisualRegression;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 public class BasePage {
+    // Collects visibility, text, attributes and bounding box for every match in a single round trip.
+    private static final String SNAPSHOT_SCRIPT =
+        "var elements = arguments[0] ? Array.prototype.slice.call(document.querySelectorAll(arguments[0])) : arguments[1];" +
+        "var attributeNames = arguments[2] || [];" +
+        "return elements.map(function(el) {" +
+        "  var rect = el.getBoundingClientRect();" +
+        "  var style = window.getComputedStyle(el);" +
+        "  var visible = style.visibility !== 'hidden' && style.display !== 'none' &&" +
+        "      (el.offsetWidth > 0 || el.offsetHeight > 0 || el.getClientRects().length > 0);" +
+        "  var attributes = {};" +
+        "  attributeNames.forEach(function(name) { attributes[name] = el.getAttribute(name); });" +
+        "  return { element: el, tag: el.tagName.toLowerCase(), visible: visible, enabled: !el.disabled," +
+        "           text: visible ? (el.innerText || '').trim() : '', attributes: attributes," +
+        "           x: rect.left, y: rect.top, width: rect.width, height: rect.height };" +
+        "});";
+
+    // Resolves as soon as the predicate turns true: re-checked on every DOM mutation and readyState
+    // change, with a short interval as a safety net for changes MutationObserver cannot see (styles,
+    // form state). Arguments: timeout in ms, then the predicate's own arguments, then the callback.
+    private static final String AWAIT_SCRIPT_PREFIX =
+        "var done = arguments[arguments.length - 1];" +
+        "var timeoutMs = arguments[0];" +
+        "var args = Array.prototype.slice.call(arguments, 1, arguments.length - 1);" +
+        "var check = function() { try { return !!(function() {";
+    private static final String AWAIT_SCRIPT_SUFFIX =
+        "}).apply(null, args); } catch (e) { return false; } };" +
+        "if (check()) { done(true); return; }" +
+        "var finished = false;" +
+        "var onChange = function() { if (!finished && check()) { finish(true); } };" +
+        "var observer = new MutationObserver(onChange);" +
+        "var poll = setInterval(onChange, 100);" +
+        "var timer = setTimeout(function() { if (!finished) { finish(false); } }, timeoutMs);" +
+        "function finish(result) {" +
+        "  finished = true; observer.disconnect(); clearInterval(poll); clearTimeout(timer);" +
+        "  document.removeEventListener('readystatechange', onChange); window.removeEventListener('load', onChange);" +
+        "  done(result);" +
+        "}" +
+        "observer.observe(document.documentElement || document," +
+        "  { childList: true, subtree: true, attributes: true, characterData: true });" +
+        "document.addEventListener('readystatechange', onChange);" +
+        "window.addEventListener('load', onChange);";
+
+    private static final String VISIBLE_PREDICATE =
+        "var el = arguments[0];" +
+        "if (!el || !el.isConnected) { return false; }" +
+        "var style = window.getComputedStyle(el);" +
+        "return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0' &&" +
+        "  (el.offsetWidth > 0 || el.offsetHeight > 0 || el.getClientRects().length > 0);";
+
+    private static final String CLICKABLE_PREDICATE =
+        "var el = arguments[0];" +
+        "if (!el || !el.isConnected || el.disabled) { return false; }" +
+        "var style = window.getComputedStyle(el);" +
+        "return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0' &&" +
+        "  (el.offsetWidth > 0 || el.offsetHeight > 0 || el.getClientRects().length > 0);";
+
+    // Navigation Timing, resource count and buffered LCP/CLS entries for the current document.
+    // takeRecords() hands back the buffered entries synchronously, so no async script is needed.
+    // The window flag keeps repeated waitForPageLoad calls on one document from double counting.
+    private static final String PAGE_PERFORMANCE_SCRIPT =
+        "if (window.__pagePerformanceCaptured) { return null; }" +
+        "window.__pagePerformanceCaptured = true;" +
+        "var result = { resources: performance.getEntriesByType('resource').length, lcp: null, cls: null };" +
+        "var nav = performance.getEntriesByType('navigation')[0];" +
+        "if (nav) {" +
+        "  result.ttfb = nav.responseStart; result.domContentLoaded = nav.domContentLoadedEventEnd;" +
+        "  result.load = nav.loadEventEnd > 0 ? nav.loadEventEnd : nav.duration;" +
+        "}" +
+        "try {" +
+        "  var lcpObserver = new PerformanceObserver(function() {});" +
+        "  lcpObserver.observe({ type: 'largest-contentful-paint', buffered: true });" +
+        "  var lcpEntries = lcpObserver.takeRecords(); lcpObserver.disconnect();" +
+        "  if (lcpEntries.length) { result.lcp = lcpEntries[lcpEntries.length - 1].startTime; }" +
+        "} catch (e) {}" +
+        "try {" +
+        "  var clsObserver = new PerformanceObserver(function() {});" +
+        "  clsObserver.observe({ type: 'layout-shift', buffered: true });" +
+        "  var cls = 0; clsObserver.takeRecords().forEach(function(s) { if (!s.hadRecentInput) { cls += s.value; } });" +
+        "  clsObserver.disconnect(); result.cls = cls;" +
+        "} catch (e) {}" +
+        "return result;";
+
+    // Hashes the tag#id.classes skeleton of the page (or the subtree at arguments[0]) bottom-up with
+    // FNV-1a. Runs of identical sibling subtrees count once, so product grids of any length hash the same.
+    // Subtree hashes (down to arguments[1] plus anything with an id, first of a repeat only) are only
+    // returned when the root hash differs from arguments[2], the one stored last run; otherwise the
+    // reply is a few bytes. Automatic captures pass their key as arguments[3] and are taken once per
+    // document, however many page objects wrap it.
+    private static final String DOM_FINGERPRINT_SCRIPT =
+        "var root = arguments[0] ? document.querySelector(arguments[0]) : document.documentElement;" +
+        "if (!root) { return null; }" +
+        "if (arguments[3]) { var done = window.__domFingerprinted = window.__domFingerprinted || {};" +
+        "  if (done[arguments[3]]) { return null; } done[arguments[3]] = true; }" +
+        "var maxDepth = arguments[1], subtrees = {}, nodes = 0;" +
+        "var skip = { SCRIPT: 1, STYLE: 1, NOSCRIPT: 1, TEMPLATE: 1, LINK: 1, META: 1 };" +
+        "function fnv(s) { var h = 0x811c9dc5;" +
+        "  for (var i = 0; i < s.length; i++) { h ^= s.charCodeAt(i); h = Math.imul(h, 0x01000193); }" +
+        "  return ('0000000' + (h >>> 0).toString(16)).slice(-8); }" +
+        "function label(el) { var l = el.tagName.toLowerCase(); if (el.id) { l += '#' + el.id; }" +
+        "  var c = (el.getAttribute('class') || '').trim(); if (c) { l += '.' + c.split(/\\s+/).sort().join('.'); }" +
+        "  return l; }" +
+        "function walk(el, path, depth, repeated) {" +
+        "  nodes++; var parts = [], last = null, seen = {};" +
+        "  for (var child = el.firstElementChild; child; child = child.nextElementSibling) {" +
+        "    if (skip[child.tagName]) { continue; }" +
+        "    var childLabel = label(child), n = seen[childLabel] = (seen[childLabel] || 0) + 1;" +
+        "    var h = walk(child, path + ' > ' + childLabel, depth + 1, repeated || n > 1);" +
+        "    if (h !== last) { parts.push(h); last = h; }" +
+        "  }" +
+        "  var hash = fnv(label(el) + '(' + parts.join(',') + ')');" +
+        "  if (!repeated && (depth <= maxDepth || el.id)) { subtrees[path] = hash; }" +
+        "  return hash;" +
+        "}" +
+        "var rootHash = walk(root, label(root), 0, false);" +
+        "return { hash: rootHash, nodes: nodes, subtrees: rootHash === arguments[2] ? null : subtrees };";
+
     protected WebDriver driver;
     protected WebDriverWait wait;
     protected JavascriptExecutor jsExecutor;
@@ -25,11 +157,47 @@ public class BasePage {
     }
 
     protected void waitForElement(WebElement element) {
-        wait.until(ExpectedConditions.visibilityOf(element));
+        awaitInPage("visibility of " + element, defaultTimeout(),
+            ExpectedConditions.visibilityOf(element), VISIBLE_PREDICATE, element);
     }
 
     protected void waitForElementToBeClickable(WebElement element) {
-        wait.until(ExpectedConditions.elementToBeClickable(element));
+        awaitInPage("element to be clickable: " + element, defaultTimeout(),
+            ExpectedConditions.elementToBeClickable(element), CLICKABLE_PREDICATE, element);
+    }
+
+    // Event-driven counterpart of WebDriverWait.until: same timeout and TimeoutException, but control
+    // returns as soon as the in-page predicate holds instead of on the next 500 ms poll. If the script
+    // cannot run (page navigating away, element not resolvable yet) it falls back to polling.
+    protected void awaitInPage(String description, Duration timeout, ExpectedCondition<?> fallback,
+                               String predicateBody, Object... args) {
+        long started = System.nanoTime();
+        Object[] scriptArgs = new Object[args.length + 1];
+        scriptArgs[0] = timeout.toMillis();
+        System.arraycopy(args, 0, scriptArgs, 1, args.length);
+
+        Object result;
+        try {
+            result = jsExecutor.executeAsyncScript(AWAIT_SCRIPT_PREFIX + predicateBody + AWAIT_SCRIPT_SUFFIX, scriptArgs);
+        } catch (ScriptTimeoutException e) {
+            throw timeoutFor(description, timeout, e);
+        } catch (WebDriverException e) {
+            Duration remaining = timeout.minusNanos(System.nanoTime() - started);
+            new WebDriverWait(driver, remaining.isNegative() ? Duration.ZERO : remaining).until(fallback);
+            return;
+        }
+        if (!Boolean.TRUE.equals(result)) {
+            throw timeoutFor(description, timeout, null);
+        }
+    }
+
+    private TimeoutException timeoutFor(String description, Duration timeout, Throwable cause) {
+        return new TimeoutException("Expected condition failed: waiting for " + description +
+            " (tried for " + timeout.getSeconds() + " second(s) with in-page observer)", cause);
+    }
+
+    protected Duration defaultTimeout() {
+        return Duration.ofSeconds(ConfigReader.getTimeout());
     }
 
     protected void waitForElements(List<WebElement> elements) {
@@ -85,7 +253,115 @@ public class BasePage {
     }
 
     protected void waitForPageLoad() {
-        wait.until(driver -> jsExecutor.executeScript("return document.readyState").equals("complete"));
+        waitForDocumentReady();
+        recordPagePerformance();
+        recordDomFingerprint();
+        if (ConfigReader.isVisualCheckEnabled()) {
+            checkVisualBaseline();
+        }
+    }
+
+    protected void waitForDocumentReady() {
+        awaitInPage("document.readyState to be complete", defaultTimeout(),
+            driver -> jsExecutor.executeScript("return document.readyState").equals("complete"),
+            "return document.readyState === 'complete';");
+    }
+
+    public VisualRegression.Verdict checkVisualBaseline() {
+        return VisualRegression.check(driver, getClass().getSimpleName());
+    }
+
+    protected void recordDomFingerprint() {
+        if (!ConfigReader.isDomFingerprintEnabled()) {
+            return;
+        }
+        try {
+            String template = template();
+            List<String> subtrees = fingerprintSubtrees();
+            if (subtrees.isEmpty()) {
+                fingerprint(template, null, true);
+            }
+            for (String subtree : subtrees) {
+                fingerprint(template, subtree, true);
+            }
+        } catch (Exception e) {
+            TestListener.log(LogLevel.DEBUG, "Could not fingerprint DOM: " + e.getMessage());
+        }
+    }
+
+    // What the automatic capture fingerprints instead of the whole page. Pages whose content differs
+    // from run to run (a random category or product) list the parts their template fixes.
+    protected List<String> fingerprintSubtrees() {
+        return Collections.emptyList();
+    }
+
+    // Structural fingerprint of the whole page, compared against the one stored for this template last run.
+    public DomFingerprint.Fingerprint fingerprintDom() {
+        return fingerprint(template(), null, false);
+    }
+
+    // Same for one subtree, e.g. "ul.categorymenu" or "#AccountFrm"; null when nothing matches.
+    public DomFingerprint.Fingerprint fingerprintDom(String cssSelector) {
+        return fingerprint(template(), cssSelector, false);
+    }
+
+    // Page type plus the rt= route when the store uses one, so one page object reached through
+    // several routes (checkout steps, account pages) keeps a fingerprint per route.
+    private String template() {
+        String template = getClass().getSimpleName();
+        String url = driver.getCurrentUrl();
+        int query = url == null ? -1 : url.indexOf('?');
+        if (query < 0) {
+            return template;
+        }
+        for (String parameter : url.substring(query + 1).split("[&#]")) {
+            if (parameter.startsWith("rt=")) {
+                return template + "[" + parameter.substring(3) + "]";
+            }
+        }
+        return template;
+    }
+
+    @SuppressWarnings("unchecked")
+    private DomFingerprint.Fingerprint fingerprint(String template, String cssSelector, boolean automatic) {
+        String key = template + (cssSelector == null ? "" : "@" + cssSelector);
+        long started = System.nanoTime();
+        Object result = jsExecutor.executeScript(DOM_FINGERPRINT_SCRIPT, cssSelector,
+            ConfigReader.getDomFingerprintDepth(), DomFingerprint.storedHash(key), automatic ? key : null);
+        if (!(result instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> raw = (Map<String, Object>) result;
+        Map<String, String> subtrees = new HashMap<>();
+        if (raw.get("subtrees") instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) raw.get("subtrees")).entrySet()) {
+                subtrees.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+        int nodes = raw.get("nodes") instanceof Number ? ((Number) raw.get("nodes")).intValue() : 0;
+        return DomFingerprint.record(key, String.valueOf(raw.get("hash")), nodes, subtrees, System.nanoTime() - started);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void recordPagePerformance() {
+        if (!ConfigReader.isPerfCaptureEnabled()) {
+            return;
+        }
+        try {
+            Object result = jsExecutor.executeScript(PAGE_PERFORMANCE_SCRIPT);
+            if (!(result instanceof Map)) {
+                return;
+            }
+            Map<String, Double> metrics = new HashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) result).entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    metrics.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+                }
+            }
+            PagePerformance.record(getClass().getSimpleName(), metrics);
+        } catch (Exception e) {
+            TestListener.log(LogLevel.DEBUG, "Could not capture page performance: " + e.getMessage());
+        }
     }
 
     protected WebElement findDynamicElement(By locator, int maxRetries) {
@@ -93,6 +369,57 @@ public class BasePage {
         .until(ExpectedConditions.visibilityOfElementLocated(locator));
 }
 
+    // Tries the fallback candidates in the order that has worked best in previous runs.
+    // The probe returns null (or throws) on a miss; the first non-null result wins.
+    protected <L, T> T findWithFallback(String locatorName, List<L> candidates, Function<L, T> probe) {
+        String locatorKey = getClass().getSimpleName() + "." + locatorName;
+        List<L> ordered = LocatorRegistry.order(locatorKey, candidates);
+        for (int attempt = 0; attempt < ordered.size(); attempt++) {
+            L candidate = ordered.get(attempt);
+            long start = System.nanoTime();
+            T result = null;
+            try {
+                result = probe.apply(candidate);
+            } catch (Exception ignored) {}
+            if (result != null) {
+                LocatorRegistry.recordHit(locatorKey, candidate, candidates.indexOf(candidate), attempt);
+                return result;
+            }
+            LocatorRegistry.recordMiss(locatorKey, candidate, System.nanoTime() - start);
+        }
+        return null;
+    }
+
+    protected List<ElementSnapshot> snapshotElements(String cssSelector, String... attributeNames) {
+        return runSnapshot(cssSelector, null, attributeNames);
+    }
+
+    // Non-CSS locators still need one findElements call before the snapshot script.
+    protected List<ElementSnapshot> snapshotElements(By locator, String... attributeNames) {
+        List<WebElement> elements = driver.findElements(locator);
+        if (elements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return runSnapshot(null, elements, attributeNames);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ElementSnapshot> runSnapshot(String cssSelector, List<WebElement> elements, String... attributeNames) {
+        Object result = jsExecutor.executeScript(SNAPSHOT_SCRIPT, cssSelector, elements, List.of(attributeNames));
+        List<ElementSnapshot> snapshots = new ArrayList<>();
+        if (result instanceof List) {
+            for (Object item : (List<Object>) result) {
+                snapshots.add(ElementSnapshot.fromScriptResult((Map<String, Object>) item));
+            }
+        }
+        return snapshots;
+    }
+
+    // Records how many WebDriver commands a scan used versus what the per-element calls would have cost.
+    protected void recordSnapshotSavings(String scanName, int commandsIssued, int perElementCommands) {
+        CommandStats.record(getClass().getSimpleName() + "." + scanName, commandsIssued, perElementCommands);
+    }
+
     public String getCurrentUrl() {
         return driver.getCurrentUrl();
     }
@@ -100,4 +427,57 @@ public class BasePage {
     public String getPageTitle() {
         return driver.getTitle();
     }
+
+    public static class ElementSnapshot {
+        public final WebElement element;
+        public final String tag;
+        public final boolean visible;
+        public final boolean enabled;
+        public final String text;
+        public final Map<String, String> attributes;
+        public final double x;
+        public final double y;
+        public final double width;
+        public final double height;
+
+        public ElementSnapshot(WebElement element, String tag, boolean visible, boolean enabled, String text,
+                               Map<String, String> attributes, double x, double y, double width, double height) {
+            this.element = element;
+            this.tag = tag;
+            this.visible = visible;
+            this.enabled = enabled;
+            this.text = text;
+            this.attributes = attributes;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @SuppressWarnings("unchecked")
+        static ElementSnapshot fromScriptResult(Map<String, Object> raw) {
+            Map<String, String> attributes = new HashMap<>();
+            Object rawAttributes = raw.get("attributes");
+            if (rawAttributes instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) rawAttributes).entrySet()) {
+                    attributes.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().toString());
+                }
+            }
+            return new ElementSnapshot(
+                (WebElement) raw.get("element"),
+                String.valueOf(raw.get("tag")),
+                Boolean.TRUE.equals(raw.get("visible")),
+                Boolean.TRUE.equals(raw.get("enabled")),
+                raw.get("text") == null ? "" : raw.get("text").toString(),
+                attributes,
+                toDouble(raw.get("x")),
+                toDouble(raw.get("y")),
+                toDouble(raw.get("width")),
+                toDouble(raw.get("height")));
+        }
+
+        private static double toDouble(Object value) {
+            return (value instanceof Number) ? ((Number) value).doubleValue() : 0.0;
+        }
+    }
 }
@@ -3,6 +3,9 @@ package pages;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import utils.LogLevel;
+import utils.ConfigReader;
+import utils.Money;
 import utils.TestListener;
 import utils.ReportHelper;
 import java.util.List;
@@ -21,23 +24,24 @@ public class CartPage extends BasePage {
     private void navigateToCart() {
         try {
             List<String> cartSelectors = List.of(".topcart", ".cart-link", "[href*='cart']", ".shopping-cart", "a[href*='checkout/cart']");
+            WebElement cartLink = findWithFallback("cartLink", cartSelectors, selector -> {
+                for (WebElement link : driver.findElements(By.cssSelector(selector))) {
+                    if (link.isDisplayed()) {
+                        return link;
+                    }
+                }
+                return null;
+            });
             boolean navigatedToCart = false;
-            for (String selector : cartSelectors) {
+            if (cartLink != null) {
                 try {
-                    List<WebElement> cartLinks = driver.findElements(By.cssSelector(selector));
-                    for (WebElement cartLink : cartLinks) {
-                        if (cartLink.isDisplayed()) {
-                            click(cartLink);
-                            navigatedToCart = true;
-                            break;
-                        }
-                    }
-                    if (navigatedToCart) break;
+                    click(cartLink);
+                    navigatedToCart = true;
                 } catch (Exception e) {
                 }
             }
             if (!navigatedToCart) {
-                driver.get("https://automationteststore.com/index.php?rt=checkout/cart");
+                driver.get(ConfigReader.getRouteUrl("checkout/cart"));
             }
             waitForPageLoad();
             TestListener.log("Navigated to cart page: " + getCurrentUrl());
@@ -50,13 +54,13 @@ public class CartPage extends BasePage {
 public boolean validateCartItems() {
     try {
         
-        List<WebElement> cartElements = driver.findElements(
-            By.cssSelector(".cart-item, tr, .product, a")
-        );
-        TestListener.log("DEBUG: Found " + cartElements.size() + " elements in cart");
-        for (WebElement el : cartElements) {
-            if (el.isDisplayed()) {
-                TestListener.log("DEBUG Cart element: '" + el.getText().trim() + "'");
+        if (TestListener.isEnabled(LogLevel.DEBUG)) {
+            List<ElementSnapshot> cartElements = snapshotElements(".cart-item, tr, .product, a");
+            TestListener.debug(() -> "DEBUG: Found " + cartElements.size() + " elements in cart");
+            for (ElementSnapshot el : cartElements) {
+                if (el.visible) {
+                    TestListener.debug(() -> "DEBUG Cart element: '" + el.text + "'");
+                }
             }
         }
         
@@ -95,17 +99,18 @@ public String getCartTotal() {
             By.xpath("//*[contains(text(),'Total') and contains(text(),'$')]")
         );
 
-        for (By locator : totalLocators) {
-            try {
-                WebElement el = driver.findElement(locator);
-                if (el.isDisplayed()) {
-                    String raw = el.getText().trim();
-                    String cleaned = raw.replaceAll("[^0-9.,$]", "");
-                    if (cleaned.contains("$") || cleaned.matches(".*\\d+.*")) {
-                        return cleaned.startsWith("$") ? cleaned : "$" + cleaned;
-                    }
+        String total = findWithFallback("cartTotal", totalLocators, locator -> {
+            WebElement el = driver.findElement(locator);
+            if (el.isDisplayed()) {
+                String text = el.getText().trim();
+                if (Money.parseCents(text) != Money.NOT_A_PRICE) {
+                    return text;
                 }
-            } catch (Exception ignored) {}
+            }
+            return null;
+        });
+        if (total != null) {
+            return total;
         }
 
         TestListener.log("WARNING: Could not find cart total, returning $0.00");
@@ -2,20 +2,31 @@ package pages;
 
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import utils.TestListener;
 
-import java.time.Duration;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 
-public class CategoryPage {
-    private WebDriver driver;
-    private WebDriverWait wait;
+public class CategoryPage extends BasePage {
+    private static final String PRODUCT_LINK_SELECTOR =
+        ".product-thumb h4 a, " +
+        ".name a, " +
+        ".thumbnails .thumbnail h4 a, " +
+        "a[href*='product_id']:not(.btn)";
 
     public CategoryPage(WebDriver driver) {
-        this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+        super(driver);
+        // No visual check here: the category is picked at random, so there is no stable baseline.
+        waitForDocumentReady();
+        recordPagePerformance();
+        recordDomFingerprint();
+    }
+
+    // The listing and product content change with the random pick; the menu and header do not.
+    @Override
+    protected List<String> fingerprintSubtrees() {
+        return List.of("header", "ul.categorymenu");
     }
 
     public boolean hasAtLeastThreeProducts() {
@@ -42,13 +53,8 @@ public class CategoryPage {
         wait.until(ExpectedConditions.visibilityOfElementLocated(
             By.cssSelector(".product-grid, .thumbnails, .product-list")));
         
-        List<WebElement> productLinks = wait.until(ExpectedConditions
-            .presenceOfAllElementsLocatedBy(By.cssSelector(
-                ".product-thumb h4 a, " +         
-                ".name a, " +                      
-                ".thumbnails .thumbnail h4 a, " +  
-                "a[href*='product_id']:not(.btn)" 
-            )));
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(PRODUCT_LINK_SELECTOR)));
+        List<ElementSnapshot> productLinks = snapshotElements(PRODUCT_LINK_SELECTOR);
         
         if (productLinks.isEmpty()) {
             throw new RuntimeException("No product links found on category page");
@@ -56,16 +62,20 @@ public class CategoryPage {
         
         TestListener.log("Found " + productLinks.size() + " product links");
         
-        List<WebElement> visibleProducts = productLinks.stream()
-            .filter(WebElement::isDisplayed)
-            .filter(WebElement::isEnabled)
-            .filter(el -> {
-                String text = el.getText().trim();
-                return !text.isEmpty() && 
-                       !text.equalsIgnoreCase("Add to Cart") &&
-                       !text.equalsIgnoreCase("Buy Now");
-            })
-            .toList();
+        List<ElementSnapshot> visibleProducts = productLinks.stream()
+            .filter(el -> el.visible)
+            .filter(el -> el.enabled)
+            .filter(el -> !el.text.isEmpty() &&
+                       !el.text.equalsIgnoreCase("Add to Cart") &&
+                       !el.text.equalsIgnoreCase("Buy Now"))
+            .collect(Collectors.toList());
+        
+        // The presence wait plus the snapshot script, versus findElements + isDisplayed/isEnabled/getText
+        // per link + getText on the selected one
+        long displayed = productLinks.stream().filter(el -> el.visible).count();
+        long displayedAndEnabled = productLinks.stream().filter(el -> el.visible && el.enabled).count();
+        recordSnapshotSavings("selectRandomProduct", 2,
+            (int) (1 + productLinks.size() + displayed + displayedAndEnabled + (visibleProducts.isEmpty() ? 0 : 1)));
         
         if (visibleProducts.isEmpty()) {
             throw new RuntimeException("No valid product links found");
@@ -73,12 +83,12 @@ public class CategoryPage {
         
         TestListener.log(visibleProducts.size() + " valid product links found");
         Random random = new Random();
-        WebElement selectedProduct = visibleProducts.get(random.nextInt(visibleProducts.size()));
+        ElementSnapshot selectedProduct = visibleProducts.get(random.nextInt(visibleProducts.size()));
         
-        String productName = selectedProduct.getText().trim();
+        String productName = selectedProduct.text;
         TestListener.log("Selected random product: " + productName);
         
-        ((JavascriptExecutor) driver).executeScript("arguments[0].click();", selectedProduct);
+        jsExecutor.executeScript("arguments[0].click();", selectedProduct.element);
         TestListener.log("Successfully clicked on product");
         
         wait.until(ExpectedConditions.or(
@@ -4,6 +4,7 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
+import utils.ConfigReader;
 import utils.TestListener;
 
 import java.util.List;
@@ -48,7 +49,7 @@ public class CheckoutPage extends BasePage {
         } catch (Exception e) {
             TestListener.log("Error in checkout process: " + e.getMessage());
             
-            driver.get("https://automationteststore.com/index.php?rt=account/create");
+            driver.get(ConfigReader.getRouteUrl("account/create"));
             return new RegistrationPage(driver);
         }
     }
@@ -59,19 +60,13 @@ public class CheckoutPage extends BasePage {
             ".continue", "input[value*='Continue']", ".btn-continue"
         );
         
-        for (String selector : continueSelectors) {
-            try {
-                List<WebElement> buttons = driver.findElements(By.cssSelector(selector));
-                for (WebElement button : buttons) {
-                    if (button.isDisplayed() && button.isEnabled()) {
-                        return button;
-                    }
+        return findWithFallback("continueButton", continueSelectors, selector -> {
+            for (WebElement button : driver.findElements(By.cssSelector(selector))) {
+                if (button.isDisplayed() && button.isEnabled()) {
+                    return button;
                 }
-            } catch (Exception e) {
-                
             }
-        }
-        
-        return null;
+            return null;
+        });
     }
 }
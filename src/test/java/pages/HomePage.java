@@ -16,6 +16,8 @@ import java.util.Random;
 public class HomePage extends BasePage {
 
     private By categoryLinksLocator = By.cssSelector("ul.categorymenu > li > a");
+    // The menu is the same on every page, so it is read and logged once per HomePage, not per navigation.
+    private List<String> menuCategories;
 
     public HomePage(WebDriver driver) {
         super(driver);
@@ -28,6 +30,9 @@ public class HomePage extends BasePage {
     }
 
     public List<String> getAllCategoryNames() {
+    if (menuCategories != null) {
+        return new ArrayList<>(menuCategories);
+    }
     List<String> categoryNames = new ArrayList<>();
     try {
         List<WebElement> categoryLinks = waitForElementsLocated(categoryLinksLocator);
@@ -49,6 +54,9 @@ public class HomePage extends BasePage {
         TestListener.log("Failed to get categories dynamically: " + e.getMessage());
         throw new RuntimeException("Category links not found or not visible.");
     }
+    if (!categoryNames.isEmpty()) {
+        menuCategories = new ArrayList<>(categoryNames);
+    }
     return categoryNames;
 }
 
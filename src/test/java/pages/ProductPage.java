@@ -5,8 +5,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
+import utils.Money;
 import utils.TestListener;
 import utils.ReportHelper;
 import java.util.List;
@@ -36,6 +36,12 @@ public class ProductPage extends BasePage {
         waitForPageLoad();
     }
 
+    // The listing and product content change with the random pick; the menu and header do not.
+    @Override
+    protected List<String> fingerprintSubtrees() {
+        return List.of("header", "ul.categorymenu");
+    }
+
     public ProductInfo getProductInfo() {
     ProductInfo info = new ProductInfo();
 
@@ -113,14 +119,16 @@ public class ProductPage extends BasePage {
             return false;
         }
 
-        new WebDriverWait(driver, Duration.ofSeconds(10)).until(
+        awaitInPage("cart label to change from " + initialCartCount, Duration.ofSeconds(10),
             ExpectedConditions.not(
                 ExpectedConditions.textToBePresentInElementLocated(
                     By.cssSelector(".topcart .label"),
                     String.valueOf(initialCartCount)
                 )
-            )
-        );
+            ),
+            "var label = document.querySelector('.topcart .label');" +
+            "return !!label && label.innerText.indexOf(arguments[0]) === -1;",
+            String.valueOf(initialCartCount));
 
         ReportHelper.addProductToReport(info.name, info.price, driver.getCurrentUrl());
         TestListener.log("Product successfully added to cart: " + info.name);
@@ -153,15 +161,15 @@ public class ProductPage extends BasePage {
             By.cssSelector("[itemprop='name']")
         );
 
-        for (By selector : nameSelectors) {
-            try {
-                WebElement nameElement = driver.findElement(selector);
-                if (nameElement.isDisplayed()) {
-                    String text = nameElement.getText().trim();
-                    if (!text.isEmpty()) return text;
-                }
-            } catch (Exception ignored) {}
-        }
+        String name = findWithFallback("productName", nameSelectors, selector -> {
+            WebElement nameElement = driver.findElement(selector);
+            if (nameElement.isDisplayed()) {
+                String text = nameElement.getText().trim();
+                if (!text.isEmpty()) return text;
+            }
+            return null;
+        });
+        if (name != null) return name;
 
         try {
             WebElement metaName = driver.findElement(By.cssSelector("meta[property='og:title']"));
@@ -181,20 +189,18 @@ private String getProductPrice() {
             By.xpath("//*[contains(text(),'$')]")
         );
 
-        for (By selector : priceSelectors) {
-            try {
-                WebElement priceElement = driver.findElement(selector);
-                if (priceElement.isDisplayed()) {
-                    String raw = priceElement.getText().trim();
-                    String cleaned = raw.replaceAll("[^0-9.,$]", "");
-                    if (cleaned.contains("$")) {
-                        return cleaned;
-                    }
+        String price = findWithFallback("productPrice", priceSelectors, selector -> {
+            WebElement priceElement = driver.findElement(selector);
+            if (priceElement.isDisplayed()) {
+                String text = priceElement.getText().trim();
+                if (Money.parseCents(text) != Money.NOT_A_PRICE) {
+                    return text;
                 }
-            } catch (Exception ignored) {}
-        }
+            }
+            return null;
+        });
 
-        return "$0.00";
+        return (price != null) ? price : "$0.00";
     } catch (Exception e) {
         return "$0.00";
     }
@@ -110,10 +110,10 @@ public class RegistrationPage extends BasePage {
         
         selectDropdownValue(countryDropdown, userData.getOrDefault("country", "United States"));
  
-        new WebDriverWait(driver, Duration.ofSeconds(10)).until(driver -> {
-    Select stateSelect = new Select(stateDropdown);
-    return stateSelect.getOptions().size() > 1;
-});
+        awaitInPage("zone options to load", Duration.ofSeconds(10), driver -> {
+            Select stateSelect = new Select(stateDropdown);
+            return stateSelect.getOptions().size() > 1;
+        }, "return arguments[0].options.length > 1;", stateDropdown);
 
         selectDropdownValue(stateDropdown, userData.getOrDefault("zone", ""));
         
@@ -219,20 +219,14 @@ public class RegistrationPage extends BasePage {
             "[value*='Continue']", ".btn-submit", "input[type='submit']"
         );
         
-        for (String selector : submitSelectors) {
-            try {
-                List<WebElement> buttons = driver.findElements(By.cssSelector(selector));
-                for (WebElement button : buttons) {
-                    if (button.isDisplayed() && button.isEnabled()) {
-                        return button;
-                    }
+        return findWithFallback("submitButton", submitSelectors, selector -> {
+            for (WebElement button : driver.findElements(By.cssSelector(selector))) {
+                if (button.isDisplayed() && button.isEnabled()) {
+                    return button;
                 }
-            } catch (Exception e) {
-            
             }
-        }
-        
-        return null;
+            return null;
+        });
     }
     public void clearRegistrationForm() {
     try {
@@ -1,46 +1,76 @@
 package tests;
 
+import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
 import org.testng.annotations.*;
 import pages.*;
 import utils.*;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @org.testng.annotations.Listeners({utils.TestListener.class})
 public class ECommerceTest {
 
-    private HomePage homePage;
-    private CategoryPage categoryPage;
-    private ProductPage productPage;
-    private CartPage cartPage;
-    private CheckoutPage checkoutPage;
-    private RegistrationPage registrationPage;
+    // One browser and homepage per worker thread so parallel="methods" does not share page objects.
+    private final ThreadLocal<HomePage> homePage = new ThreadLocal<>();
+    // Browsers this instance opened. When the suite is split into parallel dependency groups each
+    // group has its own instance, and teardown must not close a browser another group is still using.
+    private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
 
     @BeforeSuite
     public void suiteSetup() {
         TestListener.log("Starting E-Commerce Test Suite");
         ReportHelper.reset();
+        // Crawled here so the crawl is not counted in test 2's time.
+        if (ConfigReader.isCatalogIndexEnabled()) {
+            CatalogIndex.get();
+        }
     }
 
      @BeforeClass
     public void classSetup() {
-        DriverFactory.initializeDriver(ConfigReader.getBrowser());
-        TestListener.log("WebDriver initialized for browser: " + ConfigReader.getBrowser());
-        
-        homePage = new HomePage(DriverFactory.getDriver());
+        homePage();
     }
 
     @AfterClass
     public void classTearDown() {
-        DriverFactory.quitDriver();
+        for (WebDriver session : sessions) {
+            DriverFactory.quitDriver(session);
+        }
+        sessions.clear();
         TestListener.log("WebDriver session ended after all tests");
     }
+
+    private WebDriver driver() {
+        WebDriver current = DriverFactory.getDriver();
+        WebDriver driver = DriverFactory.getOrInitializeDriver(ConfigReader.getBrowser());
+        if (driver != current) {
+            TestListener.log("WebDriver initialized for browser: " + ConfigReader.getBrowser());
+            ReportHelper.reset();
+            homePage.remove();
+            sessions.add(driver);
+        }
+        return driver;
+    }
+
+    private HomePage homePage() {
+        WebDriver driver = driver();
+        HomePage page = homePage.get();
+        if (page == null) {
+            page = new HomePage(driver);
+            homePage.set(page);
+        }
+        return page;
+    }
     @Test(priority = 1, description = "Homepage & Category Verification")
     public void testHomepageAndCategoryVerification() {
         try {
             TestListener.log("=== Test 1: Homepage & Category Verification ===");
 
+            HomePage homePage = homePage();
             homePage.navigateToHomePage();
 
             List<String> categories = homePage.getAllCategoryNames();
@@ -48,7 +78,7 @@ public class ECommerceTest {
 
             TestListener.logValidation("Found " + categories.size() + " categories on homepage");
 
-            categoryPage = homePage.navigateToRandomCategory();
+            CategoryPage categoryPage = homePage.navigateToRandomCategory();
 
             boolean hasThreeProducts = categoryPage.hasAtLeastThreeProducts();
             Assert.assertTrue(hasThreeProducts, "Category does not have at least 3 visible products");
@@ -68,18 +98,39 @@ public void testProductSelectionAndCartAddition() {
 
         int productsAdded = 0;
         int maxProducts = 2;
-        int attemptCount = 0;
         int maxTotalAttempts = 8;
+        HomePage homePage = homePage();
+        FlowCheckpoints flow = new FlowCheckpoints(driver(), "testProductSelectionAndCartAddition", maxTotalAttempts);
+        CatalogIndex catalog = CatalogIndex.get();
+        Set<String> triedProducts = new HashSet<>();
         
-        while (productsAdded < maxProducts && attemptCount < maxTotalAttempts) {
-            attemptCount++;
+        while (productsAdded < maxProducts && flow.nextAttempt()) {
             try {
-                homePage.navigateToHomePage();
-                categoryPage = homePage.navigateToRandomCategory();
-                productPage = categoryPage.selectRandomProduct();
+                // With catalog.enabled, go straight to a product the index lists as in stock.
+                CatalogIndex.Product indexed = catalog != null ? catalog.randomInStockProduct(triedProducts) : null;
+                ProductPage productPage;
+                if (indexed != null) {
+                    triedProducts.add(indexed.id);
+                    TestListener.log("Deep-linking to indexed product: " + indexed.name + " | " + indexed.price);
+                    driver().get(indexed.url);
+                    productPage = new ProductPage(driver());
+                    CatalogIndex.recordDeepLink();
+                } else {
+                    // Retries reopen the last category listing rather than going back through the homepage menu.
+                    CategoryPage categoryPage = flow.resume("category", CategoryPage::new);
+                    if (categoryPage == null) {
+                        homePage.navigateToHomePage();
+                        categoryPage = homePage.navigateToRandomCategory();
+                        flow.mark("category", 2);
+                    }
+                    productPage = categoryPage.selectRandomProduct();
+                }
                 
                 if (!productPage.getProductInfo().isAvailable) {
                     TestListener.log("Skipping out-of-stock product");
+                    if (indexed != null) {
+                        catalog.markOutOfStock(indexed.id);
+                    }
                     continue;
                 }
                 
@@ -87,12 +138,15 @@ public void testProductSelectionAndCartAddition() {
                 
                 if (addedSuccessfully) {
                     productsAdded++;
+                    flow.succeeded();
                     TestListener.log("Successfully added product " + productsAdded);
                 }
             } catch (Exception e) {
-                TestListener.log("Failed attempt " + attemptCount + ": " + e.getMessage());
+                TestListener.log("Failed attempt " + flow.getAttempts() + ": " + e.getMessage());
+                flow.failed(e);
             }
         }
+        flow.finish();
         
         Assert.assertTrue(productsAdded >= 1, "Failed to add at least 1 product to cart. Added: " + productsAdded);
         TestListener.logValidation("Successfully added " + productsAdded + " product(s) to cart");
@@ -103,12 +157,19 @@ public void testProductSelectionAndCartAddition() {
         throw e;
     }
 }
+   // With seed.productUrls the cart is seeded here and test 2 is no longer a prerequisite.
+   @Seedable
    @Test(priority = 3, description = "Cart & Checkout Workflow", dependsOnMethods = {"testProductSelectionAndCartAddition"})
 public void testCartAndCheckoutWorkflow() {
     try {
         TestListener.log("=== Test 3: Cart & Checkout Workflow ===");
 
-        cartPage = new CartPage(DriverFactory.getDriver());
+        List<String> seedProductUrls = ConfigReader.getSeedProductUrls();
+        if (!seedProductUrls.isEmpty()) {
+            seedCart(seedProductUrls);
+        }
+
+        CartPage cartPage = new CartPage(driver());
 
         boolean cartItemsValid = cartPage.validateCartItems();
         Assert.assertTrue(cartItemsValid, "Cart items validation failed");
@@ -116,15 +177,15 @@ public void testCartAndCheckoutWorkflow() {
         String actualTotal = cartPage.getCartTotal();
         TestListener.log("Actual Cart Total: " + actualTotal);
         
-        boolean cartTotalValid = actualTotal.contains("$") && actualTotal.matches(".*\\d+.*");
+        boolean cartTotalValid = Money.parseCents(actualTotal) != Money.NOT_A_PRICE;
         if (!cartTotalValid) {
             TestListener.log("WARNING: Cart total validation is basic - actual: " + actualTotal);
         }
         
         TestListener.logValidation("Cart validation completed successfully");
 
-        checkoutPage = cartPage.proceedToCheckout();
-        registrationPage = checkoutPage.selectRegistration();
+        CheckoutPage checkoutPage = cartPage.proceedToCheckout();
+        RegistrationPage registrationPage = checkoutPage.selectRegistration();
         registrationPage.fillRegistrationForm();
 
         TestListener.log("Registration form filled with test data from CSV");
@@ -140,8 +201,9 @@ public void testNegativeScenarioValidation() {
     try {
         TestListener.log("=== Test 4: Negative Scenario - Validation Testing ===");
 
-        DriverFactory.getDriver().get("https://automationteststore.com/index.php?rt=account/create");
-        registrationPage = new RegistrationPage(DriverFactory.getDriver());
+        WebDriver driver = driver();
+        driver.get(ConfigReader.getRouteUrl("account/create"));
+        RegistrationPage registrationPage = new RegistrationPage(driver);
 
         registrationPage.clearRegistrationForm();
 
@@ -159,6 +221,48 @@ public void testNegativeScenarioValidation() {
     }
 }
 
+   @Test(priority = 5, description = "Bonus - UI Changes Detection")
+public void testBonusUIChangesDetection() {
+    try {
+        TestListener.log("=== Bonus Test: UI Changes Detection ===");
+
+        // Only pages whose content does not depend on a random pick have a stable baseline.
+        HomePage homePage = homePage();
+        homePage.navigateToHomePage();
+        VisualRegression.Verdict homeVerdict = homePage.checkVisualBaseline();
+
+        WebDriver driver = driver();
+        driver.get(ConfigReader.getRouteUrl("account/create"));
+        VisualRegression.Verdict registrationVerdict = new RegistrationPage(driver).checkVisualBaseline();
+
+        Assert.assertTrue(homeVerdict.passed(), "Homepage differs from its baseline: " + homeVerdict.detail);
+        Assert.assertTrue(registrationVerdict.passed(),
+            "Registration page differs from its baseline: " + registrationVerdict.detail);
+
+        TestListener.logValidation("No unexpected UI changes on homepage and registration page");
+        TestListener.log("=== Bonus Test Completed Successfully ===");
+    } catch (Exception e) {
+        TestListener.log("Bonus test failed with exception: " + e.getMessage());
+        throw e;
+    }
+}
+
+    // Adds products through the storefront's own add-to-cart form over HTTP, in the browser's session.
+    private void seedCart(List<String> productUrls) {
+        WebDriver driver = driver();
+        StateSeeder seeder = new StateSeeder();
+        seeder.useSessionOf(driver);
+        for (String productUrl : productUrls) {
+            try {
+                StateSeeder.SeededProduct product = seeder.addProductToCart(productUrl);
+                ReportHelper.addProductToReport(product.name, product.price, product.url);
+            } catch (Exception e) {
+                TestListener.log("Failed to seed product " + productUrl + ": " + e.getMessage());
+            }
+        }
+        seeder.applyTo(driver);
+    }
+
     @AfterSuite
     public void suiteTearDown() {
         TestListener.log("E-Commerce Test Suite completed");
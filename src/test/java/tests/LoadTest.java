@@ -0,0 +1,27 @@
+package tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import utils.ConfigReader;
+import utils.LoadEngine;
+import utils.TestListener;
+
+// HTTP-level load run of the ECommerceTest journey. Not part of the default suite; run with
+// mvn test -Dtest=LoadTest -Dload.users=200 (add -Dreplay.mode=replay to stay off the live site).
+@org.testng.annotations.Listeners({utils.TestListener.class})
+public class LoadTest {
+
+    @Test(description = "Storefront journey under load")
+    public void testStorefrontJourneyUnderLoad() throws InterruptedException {
+        TestListener.log("=== Load Test: Storefront journey ===");
+
+        LoadEngine engine = LoadEngine.fromConfig();
+        engine.run();
+        engine.logSummary();
+
+        Assert.assertTrue(engine.getCompletedJourneys() > 0, "No virtual user completed the journey");
+        Assert.assertTrue(engine.getErrorRate() <= ConfigReader.getLoadMaxErrorRate(),
+            "Error rate " + String.format("%.2f%%", engine.getErrorRate() * 100) + " exceeds " +
+            String.format("%.2f%%", ConfigReader.getLoadMaxErrorRate() * 100));
+    }
+}
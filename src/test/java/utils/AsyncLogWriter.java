@@ -0,0 +1,173 @@
+package utils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+public class AsyncLogWriter {
+    private static final int MAX_BATCH = 512;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong droppedEntries = new AtomicLong();
+    // Only ever touched from the writer thread.
+    private PrintWriter reportWriter;
+    private long recordNumber;
+
+    public AsyncLogWriter(int capacity) {
+        this(capacity, "report-writer");
+    }
+
+    public AsyncLogWriter(int capacity, String threadName) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Thread writerThread = new Thread(this::drainLoop, threadName);
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, threadName + "-shutdown"));
+    }
+
+    // consoleLine goes to System.out, reportText (already line-terminated) to the report file.
+    // Either may be null. DEBUG output is dropped rather than stalling a test when the queue is full.
+    public void write(LogLevel level, String consoleLine, String reportText) {
+        enqueue(level, new Entry(consoleLine, reportText, null, null));
+    }
+
+    // A report record numbered on the writer thread, so numbers run 1, 2, 3... in file order
+    // whichever threads wrote the records. Numbering restarts with each openReport.
+    public void writeNumbered(LogLevel level, LongFunction<String> reportText) {
+        enqueue(level, new Entry(null, null, reportText, null));
+    }
+
+    private void enqueue(LogLevel level, Entry entry) {
+        if (level == LogLevel.DEBUG) {
+            if (!queue.offer(entry)) {
+                droppedEntries.incrementAndGet();
+            }
+            return;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedEntries.incrementAndGet();
+        }
+    }
+
+    public void openReport(String path) {
+        runOnWriter(() -> {
+            closeReportWriter();
+            recordNumber = 0;
+            try {
+                reportWriter = new PrintWriter(new FileWriter(path, false));
+            } catch (IOException e) {
+                System.err.println("Failed to initialize report file: " + e.getMessage());
+            }
+        });
+    }
+
+    public void closeReport() {
+        runOnWriter(this::closeReportWriter);
+    }
+
+    // Blocks until everything queued before this call has been written and flushed.
+    public void drain() {
+        runOnWriter(() -> { });
+    }
+
+    public long getDroppedEntries() {
+        return droppedEntries.get();
+    }
+
+    private void runOnWriter(Runnable action) {
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            queue.put(new Entry(null, null, null, () -> {
+                try {
+                    action.run();
+                } finally {
+                    done.countDown();
+                }
+            }));
+            done.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        StringBuilder console = new StringBuilder();
+        StringBuilder report = new StringBuilder();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            for (Entry entry : batch) {
+                if (entry.action != null) {
+                    flush(console, report);
+                    entry.action.run();
+                    continue;
+                }
+                if (entry.consoleLine != null) {
+                    console.append(entry.consoleLine).append(LINE_SEPARATOR);
+                }
+                if (entry.reportText != null) {
+                    report.append(entry.reportText);
+                }
+                if (entry.numberedText != null) {
+                    report.append(entry.numberedText.apply(++recordNumber));
+                }
+            }
+            flush(console, report);
+            batch.clear();
+        }
+    }
+
+    private void flush(StringBuilder console, StringBuilder report) {
+        if (console.length() > 0) {
+            System.out.print(console);
+            System.out.flush();
+            console.setLength(0);
+        }
+        if (report.length() > 0) {
+            if (reportWriter != null) {
+                reportWriter.print(report);
+                reportWriter.flush();
+            }
+            report.setLength(0);
+        }
+    }
+
+    private void closeReportWriter() {
+        if (reportWriter != null) {
+            reportWriter.close();
+            reportWriter = null;
+        }
+    }
+
+    private static class Entry {
+        final String consoleLine;
+        final String reportText;
+        final LongFunction<String> numberedText;
+        final Runnable action;
+
+        Entry(String consoleLine, String reportText, LongFunction<String> numberedText, Runnable action) {
+            this.consoleLine = consoleLine;
+            this.reportText = reportText;
+            this.numberedText = numberedText;
+            this.action = action;
+        }
+    }
+}
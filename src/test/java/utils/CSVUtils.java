@@ -1,45 +1,43 @@
 package utils;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
-
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 public class CSVUtils {
-    private static final String CSV_FILE_PATH = "testdata.csv";
-
     public static Map<String, String> getRandomUserData() {
-        Map<String, String> userData = new HashMap<>();
-
-        try (CSVReader csvReader = new CSVReader(new FileReader(CSV_FILE_PATH))) {
-            List<String[]> records = csvReader.readAll();
-
-            if (records.size() > 1) {
-                String[] headers = records.get(0);
-
-                Random random = new Random();
-                int randomIndex = random.nextInt(records.size() - 1) + 1;
-                String[] dataRow = records.get(randomIndex);
-
-                for (int i = 0; i < headers.length && i < dataRow.length; i++) {
-                    userData.put(headers[i].trim(), dataRow[i].trim());
-                }
+        if (isSynthetic()) {
+            return SyntheticSource.GENERATOR.next();
+        }
+        try {
+            TestDataStore store = TestDataStore.open(ConfigReader.getTestDataFile());
+            if (store.getRowCount() > 0) {
+                int[] shard = ConfigReader.getTestDataShard();
+                return shard != null ? store.randomRow(shard[0], shard[1]) : store.randomRow();
             }
-
-        } catch (IOException | CsvException e) {
+            return new HashMap<>();
+        } catch (IOException e) {
             System.err.println("Error reading CSV file: " + e.getMessage());
-            userData.put("firstName", "John");
-            userData.put("lastName", "Doe");
-            userData.put("email", "john.doe@example.com");
-            userData.put("password", "TestPass123");
+            return defaultUserData();
         }
+    }
 
-        return userData;
+    // Rows in file order, shared across threads, for data-driven runs that should cover every row.
+    public static Map<String, String> getNextUserData() {
+        if (isSynthetic()) {
+            return SyntheticSource.GENERATOR.next();
+        }
+        try {
+            TestDataStore store = TestDataStore.open(ConfigReader.getTestDataFile());
+            if (store.getRowCount() > 0) {
+                int[] shard = ConfigReader.getTestDataShard();
+                return shard != null ? store.nextRow(shard[0], shard[1]) : store.nextRow();
+            }
+            return new HashMap<>();
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + e.getMessage());
+            return defaultUserData();
+        }
     }
 
     public static Map<String, String> getUserDataForNegativeTest() {
@@ -47,4 +45,30 @@ public class CSVUtils {
         userData.put("lastName", "");
         return userData;
     }
+
+    private static boolean isSynthetic() {
+        return "synthetic".equals(ConfigReader.getTestDataSource());
+    }
+
+    private static Map<String, String> defaultUserData() {
+        Map<String, String> userData = new HashMap<>();
+        userData.put("firstName", "John");
+        userData.put("lastName", "Doe");
+        userData.put("email", "john.doe@example.com");
+        userData.put("password", "TestPass123");
+        return userData;
+    }
+
+    // Created on first use; the seed is logged so a failing run can be replayed with -Dtestdata.seed.
+    private static class SyntheticSource {
+        static final UserDataGenerator GENERATOR = create();
+
+        private static UserDataGenerator create() {
+            Long configured = ConfigReader.getTestDataSeed();
+            long seed = configured != null ? configured : System.nanoTime();
+            TestListener.log("Synthetic test data seed: " + seed);
+            int[] shard = ConfigReader.getTestDataShard();
+            return shard != null ? new UserDataGenerator(seed, shard[0], shard[1]) : new UserDataGenerator(seed);
+        }
+    }
 }
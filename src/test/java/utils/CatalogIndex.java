@@ -0,0 +1,393 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Categories, their product URLs and each product's price and stock, crawled over plain HTTP in
+// parallel (menu, then every category page, then every product page) and cached on disk for
+// catalog.ttlMinutes. With catalog.enabled, tests deep-link straight to an in-stock product from it
+// instead of clicking through menu, category and product; the suite builds it in @BeforeSuite.
+// Stock read from the cache can be stale, so the product page still has the final say; products
+// found out of stock are not handed out again this run.
+public class CatalogIndex {
+    private static final Pattern CATEGORY_ANCHOR = Pattern.compile(
+        "<a\\b[^>]*href=[\"']([^\"']*rt=product/category[^\"']*path=([\\d_]+)[^\"']*)[\"'][^>]*>(.*?)</a>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PRODUCT_LINK = Pattern.compile(
+        "href=[\"']([^\"']*rt=product/product[^\"']*product_id=(\\d+)[^\"']*)[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern OUT_OF_STOCK = Pattern.compile(
+        "<[^>]*class=[\"'][^\"']*\\b(?:nostock|outstock)\\b[^\"']*[\"'][^>]*>\\s*[^<\\s]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CART_BUTTON = Pattern.compile(
+        "<a\\b[^>]*class=[\"'](?:[^\"']*\\s)?cart(?:\\s[^\"']*)?[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PAGE_LINK = Pattern.compile(
+        "href=[\"'][^\"']*rt=product/category[^\"']*[?&;]page=(\\d{1,6})", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final int LISTING_PAGE_SIZE = 100;
+    // Guards against a listing whose pagination never ends.
+    private static final int MAX_LISTING_PAGES = 50;
+
+    private static CatalogIndex instance;
+    private static boolean loadAttempted;
+    private static final AtomicInteger deepLinks = new AtomicInteger();
+
+    private final String baseUrl;
+    private final long crawledAt;
+    private final String source;
+    private final long buildMillis;
+    private final Map<String, Category> categories;
+    private final Map<String, Product> products;
+    private final Set<String> foundOutOfStock = ConcurrentHashMap.newKeySet();
+
+    private CatalogIndex(String baseUrl, long crawledAt, String source, long buildMillis,
+                         Map<String, Category> categories, Map<String, Product> products) {
+        this.baseUrl = baseUrl;
+        this.crawledAt = crawledAt;
+        this.source = source;
+        this.buildMillis = buildMillis;
+        this.categories = categories;
+        this.products = products;
+    }
+
+    // The cached index while it is fresh, otherwise a new crawl. Null when disabled or the crawl failed,
+    // in which case callers take the click path.
+    public static synchronized CatalogIndex get() {
+        if (loadAttempted || !ConfigReader.isCatalogIndexEnabled()) {
+            return instance;
+        }
+        loadAttempted = true;
+        String baseUrl = ConfigReader.getUrl();
+        Path file = Paths.get(ConfigReader.getCatalogIndexFile());
+        long started = System.nanoTime();
+        try {
+            instance = load(file, baseUrl, started);
+            if (instance == null) {
+                instance = crawl(baseUrl, started);
+                instance.save(file);
+            }
+            TestListener.log("Catalog index ready (" + instance.source + "): " + instance.categories.size() +
+                " categories, " + instance.products.size() + " products, " + instance.inStockCount() + " in stock");
+        } catch (IOException | RuntimeException e) {
+            TestListener.log("Catalog index unavailable, using the click path: " + e.getMessage());
+        }
+        return instance;
+    }
+
+    public Collection<Category> getCategories() {
+        return Collections.unmodifiableCollection(categories.values());
+    }
+
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    // A random product believed to be in stock, skipping the given ids; null when none is left.
+    public Product randomInStockProduct(Set<String> excludedIds) {
+        List<Product> candidates = new ArrayList<>();
+        for (Product product : products.values()) {
+            if (product.inStock && !foundOutOfStock.contains(product.id) && !excludedIds.contains(product.id)) {
+                candidates.add(product);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+
+    public void markOutOfStock(String productId) {
+        foundOutOfStock.add(productId);
+    }
+
+    // Counts a product page opened by URL instead of through the homepage menu and a category listing.
+    public static void recordDeepLink() {
+        deepLinks.incrementAndGet();
+    }
+
+    public static synchronized void logSummary() {
+        if (instance == null) {
+            return;
+        }
+        TestListener.log("CATALOG INDEX:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Source: " + instance.source + " | Built in " + instance.buildMillis + "ms | Age: " +
+            (System.currentTimeMillis() - instance.crawledAt) / 60_000 + " min (TTL " +
+            ConfigReader.getCatalogTtlMinutes() + " min)");
+        TestListener.log("Categories: " + instance.categories.size() + " | Products: " + instance.products.size() +
+            " | In stock: " + instance.inStockCount() + " | Found out of stock this run: " + instance.foundOutOfStock.size());
+        // Each deep link replaces the homepage and category loads of the click path.
+        TestListener.log("Deep links: " + deepLinks.get() + " | Page loads skipped: " + deepLinks.get() * 2);
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        deepLinks.set(0);
+    }
+
+    private int inStockCount() {
+        int count = 0;
+        for (Product product : products.values()) {
+            if (product.inStock) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CatalogIndex crawl(String baseUrl, long started) throws IOException {
+        URI baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .build();
+
+        Map<String, Category> categories = new LinkedHashMap<>();
+        Matcher anchors = CATEGORY_ANCHOR.matcher(fetch(client, baseUri));
+        while (anchors.find()) {
+            String name = text(anchors.group(3));
+            Category known = categories.get(anchors.group(2));
+            if (known == null) {
+                categories.put(anchors.group(2), new Category(anchors.group(2), name,
+                    baseUri.resolve(StateSeeder.HtmlForm.decode(anchors.group(1))).toString()));
+            } else if (known.name.isEmpty() && !name.isEmpty()) {
+                categories.put(known.path, new Category(known.path, name, known.url));
+            }
+        }
+        if (categories.isEmpty()) {
+            throw new IOException("No category links found on " + baseUri);
+        }
+
+        ExecutorService crawler = Executors.newFixedThreadPool(ConfigReader.getCatalogCrawlThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "catalog-crawler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Listings are asked for in pages of 100, and the pagination links are followed to the last one.
+            Map<String, String> productCategory = new ConcurrentHashMap<>();
+            Map<String, String> productUrls = new ConcurrentHashMap<>();
+            List<Callable<Void>> listings = new ArrayList<>();
+            for (Category category : categories.values()) {
+                listings.add(() -> {
+                    int lastPage = 1;
+                    boolean truncated = false;
+                    for (int page = 1; page <= lastPage; page++) {
+                        String html = fetch(client, URI.create(category.url + "&limit=" + LISTING_PAGE_SIZE +
+                            (page > 1 ? "&page=" + page : "")));
+                        Matcher links = PRODUCT_LINK.matcher(html);
+                        while (links.find()) {
+                            productUrls.putIfAbsent(links.group(2),
+                                baseUri.resolve(StateSeeder.HtmlForm.decode(links.group(1))).toString());
+                            productCategory.putIfAbsent(links.group(2), category.path);
+                        }
+                        Matcher pages = PAGE_LINK.matcher(html);
+                        while (pages.find()) {
+                            int linked = Integer.parseInt(pages.group(1));
+                            truncated |= linked > MAX_LISTING_PAGES;
+                            lastPage = Math.max(lastPage, Math.min(linked, MAX_LISTING_PAGES));
+                        }
+                    }
+                    if (truncated) {
+                        TestListener.log("Catalog crawl read only the first " + MAX_LISTING_PAGES +
+                            " listing pages of " + category.name);
+                    }
+                    return null;
+                });
+            }
+            int failedListings = runAll(crawler, listings);
+
+            Map<String, Product> products = new ConcurrentHashMap<>();
+            List<Callable<Void>> productPages = new ArrayList<>();
+            for (Map.Entry<String, String> entry : productUrls.entrySet()) {
+                productPages.add(() -> {
+                    String html = fetch(client, URI.create(entry.getValue()));
+                    String name = StateSeeder.firstGroup(StateSeeder.TITLE_PATTERN, html, "Unknown Product")
+                        .replace("Automation Test Store", "").trim();
+                    String price = StateSeeder.firstGroup(StateSeeder.PRICE_PATTERN, html, "").trim();
+                    boolean inStock = !OUT_OF_STOCK.matcher(html).find() && CART_BUTTON.matcher(html).find();
+                    products.put(entry.getKey(), new Product(entry.getKey(), name, price, inStock,
+                        productCategory.get(entry.getKey()), entry.getValue()));
+                    return null;
+                });
+            }
+            int failedProducts = runAll(crawler, productPages);
+            if (failedListings + failedProducts > 0) {
+                TestListener.log("Catalog crawl skipped " + failedListings + " category and " + failedProducts +
+                    " product page(s) that failed to load");
+            }
+
+            Map<String, Product> ordered = new LinkedHashMap<>();
+            products.keySet().stream().sorted().forEach(id -> ordered.put(id, products.get(id)));
+            return new CatalogIndex(baseUrl, System.currentTimeMillis(), "crawled", elapsedMillis(started),
+                categories, ordered);
+        } finally {
+            crawler.shutdownNow();
+        }
+    }
+
+    // Returns how many of the tasks failed.
+    private static int runAll(ExecutorService executor, List<Callable<Void>> tasks) throws IOException {
+        int failed = 0;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failed++;
+                    TestListener.log(LogLevel.DEBUG, "Catalog crawl request failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while crawling the catalog", e);
+        }
+        return failed;
+    }
+
+    private static String fetch(HttpClient client, URI uri) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(ConfigReader.getTimeout())).build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new IOException("HTTP " + response.statusCode() + " for " + uri);
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + uri, e);
+        }
+    }
+
+    private static String text(String html) {
+        return StateSeeder.HtmlForm.decode(TAG.matcher(html).replaceAll(" ")).replaceAll("\\s+", " ").trim();
+    }
+
+    private static long elapsedMillis(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    // Tab-separated: a header with the crawl time and storefront, then C (category) and P (product) lines.
+    private void save(Path file) {
+        try {
+            Path absolute = file.toAbsolutePath();
+            Files.createDirectories(absolute.getParent());
+            Path temp = Files.createTempFile(absolute.getParent(), "catalog", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(String.join("\t", "#catalog", String.valueOf(crawledAt), baseUrl));
+                writer.newLine();
+                for (Category category : categories.values()) {
+                    writer.write(String.join("\t", "C", category.path, clean(category.name), category.url));
+                    writer.newLine();
+                }
+                for (Product product : products.values()) {
+                    writer.write(String.join("\t", "P", product.id, clean(product.name), clean(product.price),
+                        String.valueOf(product.inStock), String.valueOf(product.categoryPath), product.url));
+                    writer.newLine();
+                }
+            }
+            // Other JVMs of a sharded run may read the file while this one writes it.
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            TestListener.log("Failed to save catalog index: " + e.getMessage());
+        }
+    }
+
+    // Null when there is no cache, it is past its TTL or it was crawled from another storefront.
+    private static CatalogIndex load(Path file, String baseUrl, long started) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return null;
+        }
+        String[] header = lines.get(0).split("\t", -1);
+        if (header.length < 3 || !"#catalog".equals(header[0]) || !baseUrl.equals(header[2])) {
+            return null;
+        }
+        long crawledAt;
+        try {
+            crawledAt = Long.parseLong(header[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (System.currentTimeMillis() - crawledAt > ConfigReader.getCatalogTtlMinutes() * 60_000L) {
+            return null;
+        }
+
+        Map<String, Category> categories = new LinkedHashMap<>();
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length == 4 && "C".equals(fields[0])) {
+                categories.put(fields[1], new Category(fields[1], fields[2], fields[3]));
+            } else if (fields.length == 7 && "P".equals(fields[0])) {
+                products.put(fields[1], new Product(fields[1], fields[2], fields[3], Boolean.parseBoolean(fields[4]),
+                    fields[5], fields[6]));
+            }
+        }
+        if (products.isEmpty()) {
+            return null;
+        }
+        return new CatalogIndex(baseUrl, crawledAt, "cache", elapsedMillis(started), categories, products);
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    public static class Category {
+        public final String path;
+        public final String name;
+        public final String url;
+
+        public Category(String path, String name, String url) {
+            this.path = path;
+            this.name = name;
+            this.url = url;
+        }
+    }
+
+    public static class Product {
+        public final String id;
+        public final String name;
+        public final String price;
+        public final boolean inStock;
+        public final String categoryPath;
+        public final String url;
+
+        public Product(String id, String name, String price, boolean inStock, String categoryPath, String url) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.inStock = inStock;
+            this.categoryPath = categoryPath;
+            this.url = url;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CommandStats {
+    private static final Map<String, ScanStats> scans = new ConcurrentSkipListMap<>();
+
+    public static void record(String scanName, int commandsIssued, int perElementCommands) {
+        ScanStats stats = scans.computeIfAbsent(scanName, k -> new ScanStats());
+        stats.calls.incrementAndGet();
+        stats.commandsIssued.addAndGet(commandsIssued);
+        stats.perElementCommands.addAndGet(perElementCommands);
+    }
+
+    public static void logSummary() {
+        if (scans.isEmpty()) {
+            return;
+        }
+        TestListener.log("DOM SNAPSHOT COMMAND COUNTS:");
+        TestListener.log("-".repeat(40));
+        for (Map.Entry<String, ScanStats> entry : scans.entrySet()) {
+            ScanStats stats = entry.getValue();
+            TestListener.log(entry.getKey() + " | Calls: " + stats.calls.get() +
+                " | Before (per element): " + stats.perElementCommands.get() +
+                " | After (snapshot): " + stats.commandsIssued.get());
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        scans.clear();
+    }
+
+    private static class ScanStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong commandsIssued = new AtomicLong();
+        final AtomicLong perElementCommands = new AtomicLong();
+    }
+}
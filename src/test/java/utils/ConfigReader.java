@@ -2,6 +2,9 @@ package utils;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class ConfigReader {
@@ -31,8 +34,38 @@ public class ConfigReader {
         return properties.getProperty("browser", "chrome");
     }
 
+    // In record/replay mode the suite talks to the local StorefrontReplayServer instead of the live site.
     public static String getUrl() {
-        return properties.getProperty("url", "https://automationteststore.com/");
+        if (!"off".equals(getReplayMode())) {
+            return StorefrontReplayServer.ensureStarted().getBaseUrl();
+        }
+        return getUpstreamUrl();
+    }
+
+    public static String getRouteUrl(String route) {
+        return getUrl() + "index.php?rt=" + route;
+    }
+
+    public static String getUpstreamUrl() {
+        return getSetting("url", "https://automationteststore.com/");
+    }
+
+    // "off", "record" (proxy the live site and save responses) or "replay" (serve saved responses).
+    public static String getReplayMode() {
+        return getSetting("replay.mode", "off").trim().toLowerCase();
+    }
+
+    public static String getReplayDir() {
+        return getSetting("replay.dir", "replay");
+    }
+
+    public static int getReplayPort() {
+        return getIntSetting("replay.port", 0);
+    }
+
+    // Fixed delay added to every replayed response, for a stable latency baseline.
+    public static int getReplayLatencyMs() {
+        return getIntSetting("replay.latencyMs", 0);
     }
 
     public static int getTimeout() {
@@ -46,4 +79,380 @@ public class ConfigReader {
     public static boolean isHeadless() {
         return Boolean.parseBoolean(properties.getProperty("headless", "false"));
     }
+
+    // "none", "methods" or "classes"; null keeps whatever testng.xml declares.
+    public static String getParallelMode() {
+        return getSetting("parallel", null);
+    }
+
+    public static boolean isThreadCountSet() {
+        return getSetting("threads", null) != null;
+    }
+
+    // "auto" (or any value below 1) means one worker thread per available core.
+    public static int getThreadCount() {
+        String value = getSetting("threads", "auto");
+        try {
+            int threads = Integer.parseInt(value.trim());
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // Splits the suite into one parallel <test> per dependsOnMethods group (see TestScheduler).
+    public static boolean isDependencySchedulingEnabled() {
+        return Boolean.parseBoolean(getSetting("schedule.dependencyGroups", "true"));
+    }
+
+    // Groups mostly wait on the browser, so by default every group gets a thread; 0 means no cap.
+    public static int getScheduleMaxThreads() {
+        return getNonNegativeIntSetting("schedule.maxThreads", 0);
+    }
+
+    // How often a flow may reopen the same checkpoint without success before falling back past it.
+    public static int getCheckpointMaxResumes() {
+        return getIntSetting("checkpoint.maxResumes", 2);
+    }
+
+    // Crawled product index tests deep-link into instead of clicking through menu and category.
+    // Off by default: the click path is the journey the suite is meant to cover.
+    public static boolean isCatalogIndexEnabled() {
+        return Boolean.parseBoolean(getSetting("catalog.enabled", "false"));
+    }
+
+    public static String getCatalogIndexFile() {
+        return getSetting("catalog.file", "catalog-index.tsv");
+    }
+
+    public static int getCatalogTtlMinutes() {
+        return getIntSetting("catalog.ttlMinutes", 60);
+    }
+
+    public static int getCatalogCrawlThreads() {
+        return getIntSetting("catalog.crawlThreads", 8);
+    }
+
+    public static boolean isDriverPoolEnabled() {
+        return Boolean.parseBoolean(getSetting("driver.pool.enabled", "false"));
+    }
+
+    public static int getDriverPoolSize() {
+        return getIntSetting("driver.pool.size", getThreadCount());
+    }
+
+    // A pooled browser is quit and replaced after this many leases to keep memory growth in check.
+    public static int getDriverPoolMaxUses() {
+        return getIntSetting("driver.pool.maxUses", 20);
+    }
+
+    public static int getDriverPoolLeaseTimeout() {
+        return getIntSetting("driver.pool.leaseTimeout", 120);
+    }
+
+    public static LogLevel getLogLevel() {
+        return LogLevel.fromString(getSetting("log.level", "INFO"), LogLevel.INFO);
+    }
+
+    public static int getLogQueueCapacity() {
+        return getIntSetting("log.queueCapacity", 8192);
+    }
+
+    public static String getTestDataFile() {
+        return getSetting("testdata.file", "testdata.csv");
+    }
+
+    // "csv" reads testdata.file, "synthetic" generates unique users with UserDataGenerator.
+    public static String getTestDataSource() {
+        return getSetting("testdata.source", "csv").trim().toLowerCase();
+    }
+
+    // Fixed seed for reproducible synthetic data; null means pick a new one per run.
+    public static Long getTestDataSeed() {
+        String value = getSetting("testdata.seed", null);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return (long) value.trim().hashCode();
+        }
+    }
+
+    // Retention cap for the content-addressed screenshots/ store; least recently used go first.
+    public static int getScreenshotMaxFiles() {
+        return getIntSetting("screenshot.maxFiles", 200);
+    }
+
+    // Compare every page against its visual baseline as it loads, not only in the bonus test.
+    public static boolean isVisualCheckEnabled() {
+        return Boolean.parseBoolean(getSetting("visual.enabled", "false"));
+    }
+
+    public static boolean isVisualUpdateBaselines() {
+        return Boolean.parseBoolean(getSetting("visual.updateBaselines", "false"));
+    }
+
+    public static String getVisualDir() {
+        return getSetting("visual.dir", "visual");
+    }
+
+    // Shard workers share the baselines under visual.dir but each writes its diff images apart.
+    public static String getVisualDiffDir() {
+        return getSetting("visual.diffDir", Paths.get(getVisualDir(), "diffs").toString());
+    }
+
+    public static int getVisualTileSize() {
+        return getIntSetting("visual.tileSize", 32);
+    }
+
+    // Per-channel difference (0-255) below which two pixels count as equal.
+    public static int getVisualPixelTolerance() {
+        return getNonNegativeIntSetting("visual.pixelTolerance", 24);
+    }
+
+    public static int getVisualMaxHashDistance() {
+        return getNonNegativeIntSetting("visual.maxHashDistance", 10);
+    }
+
+    // visual.ignore.<PageType>=x,y,w,h;x,y,w,h
+    public static String getVisualIgnoreRegions(String pageType) {
+        return getSetting("visual.ignore." + pageType, "");
+    }
+
+    public static boolean isDomFingerprintEnabled() {
+        return Boolean.parseBoolean(getSetting("dom.fingerprint", "false"));
+    }
+
+    // Subtrees down to this depth (and any element with an id) are fingerprinted individually.
+    public static int getDomFingerprintDepth() {
+        return getIntSetting("dom.fingerprint.depth", 6);
+    }
+
+    public static String getDomFingerprintFile() {
+        return getSetting("dom.fingerprint.file", "dom-fingerprints.properties");
+    }
+
+    // Per-test HAR files streamed from Chrome DevTools (Chrome and Edge only).
+    public static boolean isHarEnabled() {
+        return Boolean.parseBoolean(getSetting("har.enabled", "false"));
+    }
+
+    public static String getHarDir() {
+        return getSetting("har.dir", "har");
+    }
+
+    public static int getHarSlowestRequests() {
+        return getIntSetting("har.slowestRequests", 5);
+    }
+
+    public static boolean isHistoryEnabled() {
+        return Boolean.parseBoolean(getSetting("history.enabled", "false"));
+    }
+
+    public static String getHistoryDir() {
+        return getSetting("history.dir", "history");
+    }
+
+    public static int getHistoryBaselineRuns() {
+        return getIntSetting("history.baselineRuns", 20);
+    }
+
+    public static int getHistoryMinRuns() {
+        return getIntSetting("history.minRuns", 5);
+    }
+
+    // Robust z-score (distance from the baseline median in MAD-derived sigmas) that counts as a slowdown.
+    public static double getHistoryThreshold() {
+        return getDoubleSetting("history.threshold", 3.0);
+    }
+
+    public static int getHistoryMinSlowdownPercent() {
+        return getNonNegativeIntSetting("history.minSlowdownPercent", 10);
+    }
+
+    public static boolean isEventLogEnabled() {
+        return Boolean.parseBoolean(getSetting("events.enabled", "false"));
+    }
+
+    public static String getEventLogFile() {
+        return getSetting("events.file", "events.jsonl");
+    }
+
+    public static String getReportFile() {
+        return getSetting("report.file", "report.txt");
+    }
+
+    public static String getScreenshotDir() {
+        return getSetting("screenshot.dir", "screenshots");
+    }
+
+    // "index/count": this JVM only uses every count-th data row, starting at index. Null when unsharded.
+    public static int[] getTestDataShard() {
+        String value = getSetting("testdata.shard", "").trim();
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(value.substring(0, slash).trim());
+            int count = Integer.parseInt(value.substring(slash + 1).trim());
+            return (count > 1 && index >= 0 && index < count) ? new int[] {index, count} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String getShardSuite() {
+        return getSetting("shard.suite", "testng.xml");
+    }
+
+    public static int getShardWorkers() {
+        return getNonNegativeIntSetting("shard.workers", 2);
+    }
+
+    // Workers started by hand on other hosts with -Dshard.coordinator=<host>:<port>.
+    public static int getShardRemoteWorkers() {
+        return getNonNegativeIntSetting("shard.remoteWorkers", 0);
+    }
+
+    // 0 picks a free port; set it when remote workers need to know where to connect.
+    public static int getShardPort() {
+        return getNonNegativeIntSetting("shard.port", 0);
+    }
+
+    public static String getShardCoordinator() {
+        return System.getProperty("shard.coordinator", properties.getProperty("shard.coordinator"));
+    }
+
+    public static String getShardDir() {
+        return getSetting("shard.dir", "shards");
+    }
+
+    public static String getLocatorStatsFile() {
+        return getSetting("locator.statsFile", "locator-stats.properties");
+    }
+
+    // Comma-separated product URLs to put in the cart over HTTP before the cart workflow starts.
+    public static List<String> getSeedProductUrls() {
+        return getListSetting("seed.productUrls", "");
+    }
+
+    public static boolean isLeanModeEnabled() {
+        return Boolean.parseBoolean(getSetting("lean.enabled", "false"));
+    }
+
+    // Any of image, font, media, stylesheet, script.
+    public static List<String> getLeanBlockedTypes() {
+        return getListSetting("lean.blockedTypes", "image,font,media");
+    }
+
+    // Chrome DevTools URL patterns, '*' is the only wildcard.
+    public static List<String> getLeanBlockedUrls() {
+        return getListSetting("lean.blockedUrls",
+            "*googletagmanager.com*,*google-analytics.com*,*doubleclick.net*,*facebook.net*," +
+            "*fonts.googleapis.com*,*fonts.gstatic.com*,*addthis.com*");
+    }
+
+    // Off unless asked for, or a perf.budget.* setting needs the timings.
+    public static boolean isPerfCaptureEnabled() {
+        String value = getSetting("perf.capture", null);
+        return value != null ? Boolean.parseBoolean(value) : hasSettingWithPrefix("perf.budget.");
+    }
+
+    private static boolean hasSettingWithPrefix(String prefix) {
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // perf.budget.<PageType>.<metric>, falling back to perf.budget.default.<metric>; null means no budget.
+    public static Double getPerfBudget(String pageType, String metric) {
+        String value = getSetting("perf.budget." + pageType + "." + metric,
+            getSetting("perf.budget.default." + metric, null));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> getListSetting(String key, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String value : getSetting(key, defaultValue).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    public static int getLoadUsers() {
+        return getIntSetting("load.users", 50);
+    }
+
+    public static int getLoadRampUpSeconds() {
+        return getNonNegativeIntSetting("load.rampUpSeconds", 10);
+    }
+
+    public static int getLoadDurationSeconds() {
+        return getIntSetting("load.durationSeconds", 60);
+    }
+
+    // Average pause between journey steps; each pause is drawn from 50-150% of it.
+    public static int getLoadThinkTimeMs() {
+        return getNonNegativeIntSetting("load.thinkTimeMs", 1000);
+    }
+
+    public static int getLoadThreadStackKb() {
+        return getIntSetting("load.threadStackKb", 256);
+    }
+
+    public static double getLoadMaxErrorRate() {
+        return getDoubleSetting("load.maxErrorRate", 0.05);
+    }
+
+    private static double getDoubleSetting(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getSetting(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static int getNonNegativeIntSetting(String key, int defaultValue) {
+        try {
+            int value = Integer.parseInt(getSetting(key, String.valueOf(defaultValue)).trim());
+            return (value >= 0) ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static int getIntSetting(String key, int defaultValue) {
+        try {
+            int value = Integer.parseInt(getSetting(key, String.valueOf(defaultValue)).trim());
+            return (value > 0) ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String getSetting(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
 }
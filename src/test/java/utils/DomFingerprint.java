@@ -0,0 +1,241 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Structural fingerprints of pages (or subtrees) per page template, persisted between runs. A page
+// whose root hash still matches the stored one costs a single short script call; when it differs,
+// the per-subtree hashes narrow the change down to the most specific subtrees that moved.
+public class DomFingerprint {
+    private static final String KEY_SEPARATOR = "|";
+    private static final String PATH_SEPARATOR = " > ";
+    private static final int MAX_REPORTED_SUBTREES = 10;
+
+    private static final Map<String, Fingerprint> stored = new ConcurrentHashMap<>();
+    private static final Map<String, Fingerprint> current = new ConcurrentSkipListMap<>();
+    private static final Map<String, Set<String>> changes = new ConcurrentSkipListMap<>();
+    private static final AtomicLong checks = new AtomicLong();
+    private static final AtomicLong checkNanos = new AtomicLong();
+
+    static {
+        load();
+    }
+
+    // The hash the page matched last run, passed to the script so an unchanged page skips the subtree map.
+    public static String storedHash(String key) {
+        Fingerprint fingerprint = stored.get(key);
+        return fingerprint == null ? null : fingerprint.hash;
+    }
+
+    public static Fingerprint record(String key, String hash, int nodes, Map<String, String> subtrees, long elapsedNanos) {
+        checks.incrementAndGet();
+        checkNanos.addAndGet(elapsedNanos);
+        Fingerprint previous = stored.get(key);
+        if (previous != null && previous.hash.equals(hash)) {
+            Fingerprint unchanged = new Fingerprint(hash, nodes, previous.subtrees);
+            current.put(key, unchanged);
+            TestListener.log(LogLevel.DEBUG, "[DOM] " + key + " | unchanged (" + hash + ", " + nodes + " elements)");
+            return unchanged;
+        }
+
+        Fingerprint fingerprint = new Fingerprint(hash, nodes, subtrees);
+        current.put(key, fingerprint);
+        if (previous == null) {
+            TestListener.log(LogLevel.DEBUG, "[DOM] " + key + " | first fingerprint (" + hash + ", " + nodes + " elements)");
+            return fingerprint;
+        }
+        List<String> changed = changedSubtrees(previous.subtrees, subtrees);
+        changes.computeIfAbsent(key, k -> Collections.synchronizedSet(new TreeSet<>())).addAll(changed);
+        TestListener.log("[DOM] " + key + " | structure changed (" + previous.hash + " -> " + hash + ") | " +
+            (changed.isEmpty() ? "below recorded depth" : String.join("; ", limit(changed))));
+        return fingerprint;
+    }
+
+    // Most specific differences only: a changed subtree is dropped when a changed descendant explains it.
+    static List<String> changedSubtrees(Map<String, String> before, Map<String, String> after) {
+        Set<String> paths = new TreeSet<>(before.keySet());
+        paths.addAll(after.keySet());
+        List<String> differing = new ArrayList<>();
+        for (String path : paths) {
+            String oldHash = before.get(path);
+            String newHash = after.get(path);
+            if (oldHash == null || newHash == null || !oldHash.equals(newHash)) {
+                differing.add(path);
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < differing.size(); i++) {
+            String path = differing.get(i);
+            // Sorted order puts descendants right after their ancestor.
+            if (i + 1 < differing.size() && differing.get(i + 1).startsWith(path + PATH_SEPARATOR)) {
+                continue;
+            }
+            String status = !before.containsKey(path) ? "added" : !after.containsKey(path) ? "removed" : "changed";
+            result.add(path + " (" + status + ")");
+        }
+        return result;
+    }
+
+    public static void logSummary() {
+        if (current.isEmpty()) {
+            return;
+        }
+        TestListener.log("DOM FINGERPRINTS:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Checks: " + checks.get() + " | Avg cost: " +
+            String.format("%.1f", checkNanos.get() / 1_000_000.0 / Math.max(checks.get(), 1)) + "ms");
+        for (Map.Entry<String, Fingerprint> entry : current.entrySet()) {
+            String key = entry.getKey();
+            Set<String> changed = changes.get(key);
+            if (changed != null) {
+                TestListener.log(key + " | CHANGED since last run | " + entry.getValue().hash);
+                for (String subtree : limit(new ArrayList<>(changed))) {
+                    TestListener.log("   " + subtree);
+                }
+            } else {
+                TestListener.log(key + " | " + (stored.containsKey(key) ? "unchanged" : "new") + " | " +
+                    entry.getValue().hash + " | " + entry.getValue().nodes + " elements");
+            }
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        current.clear();
+        changes.clear();
+        checks.set(0);
+        checkNanos.set(0);
+    }
+
+    // Fingerprints not seen this run keep their stored value.
+    public static synchronized void save() {
+        if (current.isEmpty()) {
+            return;
+        }
+        Map<String, Fingerprint> merged = new HashMap<>(stored);
+        merged.putAll(current);
+        Properties properties = new Properties();
+        for (Map.Entry<String, Fingerprint> entry : merged.entrySet()) {
+            Fingerprint fingerprint = entry.getValue();
+            properties.setProperty(entry.getKey(), fingerprint.hash + "," + fingerprint.nodes);
+            for (Map.Entry<String, String> subtree : fingerprint.subtrees.entrySet()) {
+                properties.setProperty(entry.getKey() + KEY_SEPARATOR + subtree.getKey(), subtree.getValue());
+            }
+        }
+        try {
+            store(properties, Paths.get(ConfigReader.getDomFingerprintFile()));
+        } catch (IOException e) {
+            System.err.println("Failed to save DOM fingerprints: " + e.getMessage());
+        }
+    }
+
+    // Shard workers each save to their own copy of the fingerprint file, seeded from the shared one.
+    // A page a worker fingerprinted differently from the shared file replaces it, subtrees and all.
+    static void mergeWorkerCopies(List<byte[]> copies) throws IOException {
+        Path file = Paths.get(ConfigReader.getDomFingerprintFile());
+        Properties shared = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                shared.load(in);
+            }
+        }
+        Properties merged = new Properties();
+        merged.putAll(shared);
+        for (byte[] copy : copies) {
+            Properties worker = new Properties();
+            worker.load(new ByteArrayInputStream(copy));
+            for (String key : worker.stringPropertyNames()) {
+                if (key.contains(KEY_SEPARATOR) || worker.getProperty(key).equals(shared.getProperty(key))) {
+                    continue;
+                }
+                String prefix = key + KEY_SEPARATOR;
+                merged.stringPropertyNames().stream().filter(name -> name.startsWith(prefix)).forEach(merged::remove);
+                for (String name : worker.stringPropertyNames()) {
+                    if (name.equals(key) || name.startsWith(prefix)) {
+                        merged.setProperty(name, worker.getProperty(name));
+                    }
+                }
+            }
+        }
+        store(merged, file);
+    }
+
+    // Written to a temporary file and moved into place, so a reader never sees half a file.
+    private static void store(Properties properties, Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), "dom-fingerprints", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "DOM structure fingerprints: page type = hash,elements; page type|subtree path = hash");
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void load() {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(ConfigReader.getDomFingerprintFile())) {
+            properties.load(fis);
+        } catch (IOException e) {
+            return;
+        }
+        Map<String, Map<String, String>> subtrees = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            int separator = name.indexOf(KEY_SEPARATOR);
+            if (separator > 0) {
+                subtrees.computeIfAbsent(name.substring(0, separator), k -> new HashMap<>())
+                    .put(name.substring(separator + 1), properties.getProperty(name));
+            }
+        }
+        for (String name : properties.stringPropertyNames()) {
+            if (name.contains(KEY_SEPARATOR)) {
+                continue;
+            }
+            String[] parts = properties.getProperty(name).split(",");
+            try {
+                stored.put(name, new Fingerprint(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 0,
+                    subtrees.getOrDefault(name, Collections.emptyMap())));
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring malformed DOM fingerprint for " + name);
+            }
+        }
+    }
+
+    private static List<String> limit(List<String> subtrees) {
+        if (subtrees.size() <= MAX_REPORTED_SUBTREES) {
+            return subtrees;
+        }
+        List<String> limited = new ArrayList<>(subtrees.subList(0, MAX_REPORTED_SUBTREES));
+        limited.add("... and " + (subtrees.size() - MAX_REPORTED_SUBTREES) + " more");
+        return limited;
+    }
+
+    public static class Fingerprint {
+        public final String hash;
+        public final int nodes;
+        public final Map<String, String> subtrees;
+
+        public Fingerprint(String hash, int nodes, Map<String, String> subtrees) {
+            this.hash = hash;
+            this.nodes = nodes;
+            this.subtrees = subtrees;
+        }
+    }
+}
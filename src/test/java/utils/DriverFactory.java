@@ -5,14 +5,33 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DriverFactory {
     private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    // Session -> the thread it was handed to.
+    private static final Map<WebDriver, Thread> activeDrivers = new ConcurrentHashMap<>();
 
     public static WebDriver initializeDriver(String browserName) {
+        WebDriver webDriver = ConfigReader.isDriverPoolEnabled()
+            ? DriverPool.getInstance(browserName).lease()
+            : createDriver(browserName);
+
+        driver.set(webDriver);
+        activeDrivers.put(webDriver, Thread.currentThread());
+        if (NetworkCapture.isEnabled()) {
+            NetworkCapture.startRecording(webDriver);
+        }
+        return webDriver;
+    }
+
+    static WebDriver createDriver(String browserName) {
         WebDriver webDriver = null;
         String browser = (browserName == null) ? "chrome" : browserName.toLowerCase();
 
@@ -28,17 +47,28 @@ public class DriverFactory {
                     chromeOptions.addArguments("--headless=new");
                     chromeOptions.addArguments("--window-size=1920,1080");
                 }
+                if (ConfigReader.isLeanModeEnabled()) {
+                    LeanMode.configure(chromeOptions);
+                }
                 webDriver = new ChromeDriver(chromeOptions);
                 break;
 
             case "firefox":
                 WebDriverManager.firefoxdriver().setup();
-                webDriver = new FirefoxDriver();
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                if (ConfigReader.isLeanModeEnabled()) {
+                    LeanMode.configure(firefoxOptions);
+                }
+                webDriver = new FirefoxDriver(firefoxOptions);
                 break;
 
             case "edge":
                 WebDriverManager.edgedriver().setup();
-                webDriver = new EdgeDriver();
+                EdgeOptions edgeOptions = new EdgeOptions();
+                if (ConfigReader.isLeanModeEnabled()) {
+                    LeanMode.configure(edgeOptions);
+                }
+                webDriver = new EdgeDriver(edgeOptions);
                 break;
 
             default:
@@ -48,8 +78,14 @@ public class DriverFactory {
         webDriver.manage().window().maximize();
         webDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(0));
         webDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(60));
-
-        driver.set(webDriver);
+        // Upper bound for BasePage's in-page waits; each wait enforces its own shorter timeout in the script.
+        webDriver.manage().timeouts().scriptTimeout(Duration.ofSeconds(ConfigReader.getTimeout() + 30));
+        if (ConfigReader.isLeanModeEnabled()) {
+            LeanMode.applyNetworkBlocking(webDriver);
+        }
+        if (NetworkCapture.isEnabled()) {
+            NetworkCapture.attach(webDriver);
+        }
         return webDriver;
     }
 
@@ -57,14 +93,47 @@ public class DriverFactory {
         return driver.get();
     }
 
+    public static WebDriver getOrInitializeDriver(String browserName) {
+        WebDriver webDriver = driver.get();
+        if (webDriver != null && activeDrivers.containsKey(webDriver)) {
+            return webDriver;
+        }
+        return initializeDriver(browserName);
+    }
+
     public static void quitDriver() {
         if (driver.get() != null) {
             try {
-                driver.get().quit();
-            } catch (Exception e) {
+                activeDrivers.remove(driver.get());
+                releaseOrQuit(driver.get());
             } finally {
                 driver.remove();
             }
         }
     }
+
+    // A session opened by any thread; the calling thread's own reference is dropped if it is this one.
+    // A pooled session that has since gone back to the pool and been leased to another thread is
+    // left alone.
+    public static void quitDriver(WebDriver webDriver) {
+        Thread owner = activeDrivers.get(webDriver);
+        boolean leasedElsewhere = owner != null && owner != Thread.currentThread() && DriverPool.isPooled(webDriver);
+        if (owner != null && !leasedElsewhere && activeDrivers.remove(webDriver, owner)) {
+            releaseOrQuit(webDriver);
+        }
+        if (driver.get() == webDriver) {
+            driver.remove();
+        }
+    }
+
+    private static void releaseOrQuit(WebDriver webDriver) {
+        try {
+            if (DriverPool.isPooled(webDriver)) {
+                DriverPool.releaseSession(webDriver);
+            } else {
+                webDriver.quit();
+            }
+        } catch (Exception e) {
+        }
+    }
 }
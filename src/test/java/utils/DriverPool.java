@@ -0,0 +1,222 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One pool per browser, so a run that asks for firefox after chrome gets firefox sessions.
+public class DriverPool {
+    private static final Map<String, DriverPool> pools = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+
+    private final String browserName;
+    private final int poolSize;
+    private final int maxUses;
+    private final BlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<>();
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong warmHits = new AtomicLong();
+    private final AtomicLong coldStarts = new AtomicLong();
+    private final AtomicLong recycles = new AtomicLong();
+    private final AtomicLong healthCheckFailures = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    private DriverPool(String browserName, int poolSize, int maxUses) {
+        this.browserName = browserName;
+        this.poolSize = poolSize;
+        this.maxUses = maxUses;
+    }
+
+    public static DriverPool getInstance(String browserName) {
+        String browser = (browserName == null) ? "chrome" : browserName.toLowerCase();
+        return pools.computeIfAbsent(browser,
+            key -> new DriverPool(key, ConfigReader.getDriverPoolSize(), ConfigReader.getDriverPoolMaxUses()));
+    }
+
+    public static List<DriverPool> getExistingInstances() {
+        return new ArrayList<>(pools.values());
+    }
+
+    static boolean isPooled(WebDriver driver) {
+        return driver != null && leasedSessions.containsKey(driver);
+    }
+
+    static void releaseSession(WebDriver driver) {
+        PooledSession session = leasedSessions.remove(driver);
+        if (session != null) {
+            session.pool.release(session);
+        }
+    }
+
+    // Starts every browser up front, in parallel, so the first tests don't pay for startup.
+    public void warmUp() {
+        int toStart = poolSize - openSessions.get();
+        if (toStart <= 0) {
+            return;
+        }
+        ExecutorService starter = Executors.newFixedThreadPool(toStart);
+        List<Future<?>> startups = new ArrayList<>();
+        for (int i = 0; i < toStart; i++) {
+            startups.add(starter.submit(() -> {
+                if (openSessions.incrementAndGet() > poolSize) {
+                    openSessions.decrementAndGet();
+                    return;
+                }
+                try {
+                    idleSessions.offer(new PooledSession(this, DriverFactory.createDriver(browserName)));
+                } catch (RuntimeException e) {
+                    openSessions.decrementAndGet();
+                    throw e;
+                }
+            }));
+        }
+        for (Future<?> startup : startups) {
+            try {
+                startup.get();
+            } catch (Exception e) {
+                TestListener.log("[DRIVER POOL] Failed to pre-start browser: " + e.getMessage());
+            }
+        }
+        starter.shutdown();
+        TestListener.log("[DRIVER POOL] Warmed up " + idleSessions.size() + " " + browserName + " session(s)");
+    }
+
+    public WebDriver lease() {
+        long waitStart = System.nanoTime();
+        PooledSession session = null;
+        try {
+            while (session == null) {
+                session = idleSessions.poll();
+                if (session != null) {
+                    warmHits.incrementAndGet();
+                } else if (openSessions.incrementAndGet() <= poolSize) {
+                    try {
+                        session = new PooledSession(this, DriverFactory.createDriver(browserName));
+                        coldStarts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        openSessions.decrementAndGet();
+                        throw e;
+                    }
+                } else {
+                    openSessions.decrementAndGet();
+                    session = idleSessions.poll(ConfigReader.getDriverPoolLeaseTimeout(), TimeUnit.SECONDS);
+                    if (session == null) {
+                        throw new IllegalStateException("Timed out waiting for a pooled " + browserName + " session");
+                    }
+                    warmHits.incrementAndGet();
+                }
+
+                if (!isHealthy(session)) {
+                    healthCheckFailures.incrementAndGet();
+                    discard(session);
+                    session = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pooled browser session", e);
+        }
+
+        long waited = System.nanoTime() - waitStart;
+        totalLeaseWaitNanos.addAndGet(waited);
+        maxLeaseWaitNanos.accumulateAndGet(waited, Math::max);
+        leases.incrementAndGet();
+
+        session.uses++;
+        leasedSessions.put(session.driver, session);
+        return session.driver;
+    }
+
+    private void release(PooledSession session) {
+        if (session.uses >= maxUses) {
+            recycles.incrementAndGet();
+            discard(session);
+            return;
+        }
+        try {
+            resetSession(session.driver);
+            idleSessions.offer(session);
+        } catch (Exception e) {
+            healthCheckFailures.incrementAndGet();
+            discard(session);
+        }
+    }
+
+    private void resetSession(WebDriver driver) {
+        driver.manage().deleteAllCookies();
+        try {
+            ((JavascriptExecutor) driver).executeScript(
+                "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        } catch (Exception e) {
+        }
+        driver.get("about:blank");
+    }
+
+    private boolean isHealthy(PooledSession session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledSession session) {
+        openSessions.decrementAndGet();
+        try {
+            session.driver.quit();
+        } catch (Exception e) {
+        }
+    }
+
+    public void logMetrics() {
+        long leaseCount = leases.get();
+        double averageWaitMs = leaseCount == 0 ? 0.0 : totalLeaseWaitNanos.get() / 1_000_000.0 / leaseCount;
+        TestListener.log("DRIVER POOL (" + browserName + "):");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Pool size: " + poolSize + " | Max uses per session: " + maxUses);
+        TestListener.log("Leases: " + leaseCount + " | Warm hits: " + warmHits.get() + " | Cold starts: " + coldStarts.get());
+        TestListener.log("Recycled (max uses): " + recycles.get() + " | Replaced (health check): " + healthCheckFailures.get());
+        TestListener.log("Lease wait avg: " + String.format("%.1f", averageWaitMs) + "ms | max: " +
+            String.format("%.1f", maxLeaseWaitNanos.get() / 1_000_000.0) + "ms");
+        TestListener.log("");
+    }
+
+    public void shutdown() {
+        PooledSession session;
+        while ((session = idleSessions.poll()) != null) {
+            discard(session);
+        }
+        for (PooledSession leased : leasedSessions.values()) {
+            if (leased.pool == this && leasedSessions.remove(leased.driver, leased)) {
+                discard(leased);
+            }
+        }
+        pools.remove(browserName, this);
+    }
+
+    private static class PooledSession {
+        final DriverPool pool;
+        final WebDriver driver;
+        int uses = 0;
+
+        PooledSession(DriverPool pool, WebDriver driver) {
+            this.pool = pool;
+            this.driver = driver;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Machine-readable twin of report.txt: one JSON object per line for every listener and report
+// event, written through the same batching background writer. Each record carries a sequence
+// number, epoch millis, its type, the thread and the running test. Readers stream it line by line
+// from a byte offset, so a file can be followed while the run is still writing it.
+public class EventLog {
+    public enum Type {
+        RUN_START, RUN_END, TEST_START, TEST_END, VALIDATION, PRODUCT, CART_VALIDATION, SKIPPED_ELEMENT, SCREENSHOT;
+
+        final String wireName = name().toLowerCase();
+    }
+
+    private static final Json JSON = new Json();
+    private static final AsyncLogWriter writer = new AsyncLogWriter(ConfigReader.getLogQueueCapacity(), "event-writer");
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final boolean enabled = ConfigReader.isEventLogEnabled();
+
+    public static void open() {
+        if (enabled) {
+            writer.openReport(ConfigReader.getEventLogFile());
+        }
+    }
+
+    public static void close() {
+        if (enabled) {
+            writer.drain();
+            writer.closeReport();
+        }
+    }
+
+    public static void startTest(String testName) {
+        currentTest.set(testName);
+    }
+
+    public static void endTest() {
+        currentTest.remove();
+    }
+
+    // Fields are given as alternating names and values (strings, numbers, booleans or null).
+    public static void emit(Type type, Object... fields) {
+        if (!enabled) {
+            return;
+        }
+        // seq is filled in by the writer thread, in the order the records reach the file.
+        StringBuilder line = new StringBuilder(128);
+        line.append(",\"ts\":").append(System.currentTimeMillis())
+            .append(",\"type\":\"").append(type.wireName).append('"');
+        appendField(line, "thread", Thread.currentThread().getName());
+        String test = currentTest.get();
+        if (test != null && !hasField(fields, "test")) {
+            appendField(line, "test", test);
+        }
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            appendField(line, String.valueOf(fields[i]), fields[i + 1]);
+        }
+        line.append('}').append('\n');
+        String record = line.toString();
+        writer.writeNumbered(LogLevel.INFO, seq -> "{\"seq\":" + seq + record);
+    }
+
+    private static boolean hasField(Object[] fields, String name) {
+        for (int i = 0; i < fields.length; i += 2) {
+            if (name.equals(fields[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendField(StringBuilder line, String name, Object value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            line.append(value);
+        } else {
+            appendString(line, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    // Escaped to plain ASCII so the file reads the same whatever the platform charset.
+                    if (c < 0x20 || c > 0x7e) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    // Hands every complete record from the byte offset on to the consumer, one at a time, and returns
+    // the offset to resume from. A trailing line still being written is left for the next call.
+    public static long read(Path file, long offset, Consumer<Map<String, Object>> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(offset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long position = offset;
+            long lineStart = offset;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                if (line.size() > 0) {
+                    consumer.accept(JSON.toType(new String(line.toByteArray(), StandardCharsets.UTF_8), Json.MAP_TYPE));
+                }
+                line.reset();
+                lineStart = position;
+            }
+            return lineStart;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class EventLogTest {
+
+    @Test
+    public void readStopsBeforeAPartialLineAndResumesFromTheOffset() throws IOException {
+        Path file = Files.createTempFile("events", ".jsonl");
+        String first = "{\"seq\":1,\"type\":\"run_start\"}\n";
+        String second = "{\"seq\":2,\"type\":\"test_start\",\"test\":\"caf\\u00e9\"}\n";
+        Files.write(file, (first + second + "{\"seq\":3,\"type\":\"te").getBytes(StandardCharsets.UTF_8));
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        long offset = EventLog.read(file, 0, records::add);
+        Assert.assertEquals(offset, first.length() + second.length(), "the partial third line is left unread");
+        Assert.assertEquals(records.size(), 2);
+        Assert.assertEquals(records.get(1).get("test"), "café");
+
+        Files.write(file, "st_end\"}\n\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        records.clear();
+        long end = EventLog.read(file, offset, records::add);
+        Assert.assertEquals(records.size(), 1);
+        Assert.assertEquals(records.get(0).get("type"), "test_end");
+        Assert.assertEquals(((Number) records.get(0).get("seq")).intValue(), 3);
+        Assert.assertEquals(end, Files.size(file));
+
+        records.clear();
+        Assert.assertEquals(EventLog.read(file, end, records::add), end);
+        Assert.assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void numbersRecordsInFileOrderAcrossThreads() throws Exception {
+        Path file = Files.createTempFile("events", ".jsonl");
+        AsyncLogWriter writer = new AsyncLogWriter(64, "event-log-test");
+        writer.openReport(file.toString());
+
+        int threads = 8;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String name = "worker-" + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    writer.writeNumbered(LogLevel.INFO, seq -> "{\"seq\":" + seq + ",\"thread\":\"" + name + "\"}\n");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        writer.drain();
+        writer.closeReport();
+
+        List<Long> sequence = new ArrayList<>();
+        EventLog.read(file, 0, record -> sequence.add(((Number) record.get("seq")).longValue()));
+        Assert.assertEquals(sequence.size(), threads * perThread);
+        for (int i = 0; i < sequence.size(); i++) {
+            Assert.assertEquals((long) sequence.get(i), i + 1, "record " + i);
+        }
+
+        // A new report starts counting again.
+        writer.openReport(file.toString());
+        writer.writeNumbered(LogLevel.INFO, seq -> "{\"seq\":" + seq + "}\n");
+        writer.drain();
+        writer.closeReport();
+        sequence.clear();
+        EventLog.read(file, 0, record -> sequence.add(((Number) record.get("seq")).longValue()));
+        Assert.assertEquals(sequence, List.of(1L));
+    }
+}
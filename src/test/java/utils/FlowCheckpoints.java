@@ -0,0 +1,139 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+// Retry bookkeeping for multi-page flows. A flow marks the pages it reaches (the category listing,
+// say) and a retry resumes from the most recent one with a single page load instead of walking
+// the whole path again from the homepage. A checkpoint is dropped, falling back to the one before
+// it, when an attempt from it throws or it has been resumed too often without a success, and is
+// cleared once an attempt succeeds. Attempts count against one budget for the whole flow.
+public class FlowCheckpoints {
+    private static final Queue<String> summaries = new ConcurrentLinkedQueue<>();
+
+    private final WebDriver driver;
+    private final String flowName;
+    private final int attemptBudget;
+    private final int maxResumes = ConfigReader.getCheckpointMaxResumes();
+    private final Deque<Checkpoint> checkpoints = new ArrayDeque<>();
+    private int attempts;
+    private int resumes;
+    private int fallbacks;
+    private int pageLoadsSaved;
+
+    public FlowCheckpoints(WebDriver driver, String flowName, int attemptBudget) {
+        this.driver = driver;
+        this.flowName = flowName;
+        this.attemptBudget = attemptBudget;
+    }
+
+    // Starts the next attempt; false once the budget is spent.
+    public boolean nextAttempt() {
+        if (attempts >= attemptBudget) {
+            return false;
+        }
+        attempts++;
+        return true;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    // pageLoads is what reaching this page costs from scratch, e.g. 2 for homepage then category.
+    public void mark(String name, int pageLoads) {
+        while (!checkpoints.isEmpty() && checkpoints.peek().name.equals(name)) {
+            checkpoints.pop();
+        }
+        checkpoints.push(new Checkpoint(name, driver.getCurrentUrl(), pageLoads));
+        TestListener.log(LogLevel.DEBUG, "[CHECKPOINT] " + flowName + " at " + name + ": " + driver.getCurrentUrl());
+    }
+
+    // Reopens the named checkpoint and builds its page object, or returns null when the flow has to
+    // get there the long way: it was never reached, it was dropped, or its resumes are used up.
+    public <T> T resume(String name, Function<WebDriver, T> page) {
+        Checkpoint checkpoint = checkpoints.peek();
+        if (checkpoint == null || !checkpoint.name.equals(name)) {
+            return null;
+        }
+        if (checkpoint.resumes >= maxResumes) {
+            fallBack("resumed " + checkpoint.resumes + " times without success");
+            return null;
+        }
+        checkpoint.resumes++;
+        resumes++;
+        driver.get(checkpoint.url);
+        T resumed = page.apply(driver);
+        int saved = checkpoint.pageLoads - 1;
+        pageLoadsSaved += saved;
+        TestListener.log("[CHECKPOINT] Resumed " + flowName + " from " + name + " (attempt " + attempts + "/" +
+            attemptBudget + ", " + saved + " page load(s) saved)");
+        return resumed;
+    }
+
+    // The attempt reached its goal, so the checkpoint it started from is used up: the next attempt
+    // walks the path again (a fresh random category, say) instead of repeating the same page.
+    public void succeeded() {
+        Checkpoint done = checkpoints.poll();
+        if (done != null) {
+            TestListener.log(LogLevel.DEBUG, "[CHECKPOINT] " + flowName + " cleared " + done.name + " after a success");
+        }
+    }
+
+    // The attempt threw: whatever the latest checkpoint left behind is not trusted again.
+    public void failed(Exception e) {
+        fallBack(e.getMessage());
+    }
+
+    private void fallBack(String reason) {
+        Checkpoint dropped = checkpoints.poll();
+        if (dropped == null) {
+            return;
+        }
+        fallbacks++;
+        Checkpoint next = checkpoints.peek();
+        TestListener.log("[CHECKPOINT] Dropped " + dropped.name + " (" + reason + "); next attempt starts from " +
+            (next != null ? next.name : "the beginning"));
+    }
+
+    public void finish() {
+        String summary = flowName + " | Attempts: " + attempts + "/" + attemptBudget + " | Resumes: " + resumes +
+            " | Fallbacks: " + fallbacks + " | Page loads saved: " + pageLoadsSaved;
+        TestListener.log("[CHECKPOINT] " + summary);
+        summaries.add(summary);
+    }
+
+    public static void logSummary() {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        TestListener.log("CHECKPOINTED RETRIES:");
+        TestListener.log("-".repeat(40));
+        for (String summary : summaries) {
+            TestListener.log(summary);
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        summaries.clear();
+    }
+
+    private static class Checkpoint {
+        final String name;
+        final String url;
+        final int pageLoads;
+        int resumes;
+
+        Checkpoint(String name, String url, int pageLoads) {
+            this.name = name;
+            this.url = url;
+            this.pageLoads = pageLoads;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.json.Json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// "Lean" browser mode: blocks resources the assertions never look at (images, fonts, media and
+// third-party scripts) and counts the requests the browser reports as blocked.
+public class LeanMode {
+    private static final Map<String, List<String>> TYPE_PATTERNS = Map.of(
+        "image", List.of("*.png*", "*.jpg*", "*.jpeg*", "*.gif*", "*.webp*", "*.svg*", "*.ico*"),
+        "font", List.of("*.woff*", "*.woff2*", "*.ttf*", "*.otf*", "*.eot*"),
+        "media", List.of("*.mp4*", "*.webm*", "*.ogg*", "*.mp3*"),
+        "stylesheet", List.of("*.css*"),
+        "script", List.of("*.js*"));
+
+    private static final List<String> blockedPatterns = buildBlockedPatterns();
+    private static final Map<WebDriver, BlockCounter> counters = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, AtomicLong> totalBlockedByType = new ConcurrentSkipListMap<>();
+    private static final AtomicLong totalRequestsBlocked = new AtomicLong();
+
+    public static List<String> getBlockedPatterns() {
+        return blockedPatterns;
+    }
+
+    public static void configure(ChromeOptions options) {
+        if (ConfigReader.getLeanBlockedTypes().contains("image")) {
+            Map<String, Object> prefs = new HashMap<>();
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            options.setExperimentalOption("prefs", prefs);
+        }
+    }
+
+    public static void configure(EdgeOptions options) {
+        if (ConfigReader.getLeanBlockedTypes().contains("image")) {
+            Map<String, Object> prefs = new HashMap<>();
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            options.setExperimentalOption("prefs", prefs);
+        }
+    }
+
+    // Firefox has no CDP URL blocking, so resource types are switched off through preferences instead.
+    public static void configure(FirefoxOptions options) {
+        List<String> types = ConfigReader.getLeanBlockedTypes();
+        if (types.contains("image")) {
+            options.addPreference("permissions.default.image", 2);
+        }
+        if (types.contains("font")) {
+            options.addPreference("gfx.downloadable_fonts.enabled", false);
+        }
+        if (types.contains("media")) {
+            options.addPreference("media.autoplay.default", 5);
+            options.addPreference("media.autoplay.blocking_policy", 2);
+        }
+        if (!ConfigReader.getLeanBlockedUrls().isEmpty()) {
+            System.out.println("Lean mode: URL pattern blocking is Chromium-only; Firefox blocks by resource type only");
+        }
+    }
+
+    // Chromium keeps the blocked URL list for the lifetime of the page target, across navigations.
+    // The list is set on our own DevTools session, which then reports every request it blocked as a
+    // Network.loadingFailed event with a blockedReason; those are what the report counts. Images
+    // switched off by the content setting are never requested, so they do not show up in the count.
+    public static void applyNetworkBlocking(WebDriver driver) {
+        if (driver instanceof HasDevTools) {
+            try {
+                DevTools devTools = ((HasDevTools) driver).getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+                BlockCounter counter = new BlockCounter();
+                devTools.addListener(new Event<Map<String, Object>>("Network.loadingFailed",
+                    input -> input.read(Json.MAP_TYPE)), counter::onLoadingFailed);
+                devTools.send(new Command<Void>("Network.enable", Map.of()));
+                devTools.send(new Command<Void>("Network.setBlockedURLs", Map.of("urls", blockedPatterns)));
+                counters.put(driver, counter);
+                return;
+            } catch (Exception e) {
+                System.err.println("Lean mode: DevTools session unavailable, blocked requests will not be counted: " +
+                    e.getMessage());
+            }
+        }
+        if (driver instanceof HasCdp) {
+            HasCdp cdp = (HasCdp) driver;
+            cdp.executeCdpCommand("Network.enable", Map.of());
+            cdp.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedPatterns));
+        }
+    }
+
+    // Requests the browser blocked since the previous test ended on this session.
+    public static void logTestSavings(WebDriver driver, String testName) {
+        BlockCounter counter = driver == null ? null : counters.get(driver);
+        if (counter == null) {
+            return;
+        }
+        Map<String, Long> blocked = counter.take();
+        if (blocked.isEmpty()) {
+            return;
+        }
+        long requests = 0;
+        for (Map.Entry<String, Long> type : blocked.entrySet()) {
+            requests += type.getValue();
+            totalBlockedByType.computeIfAbsent(type.getKey(), k -> new AtomicLong()).addAndGet(type.getValue());
+        }
+        totalRequestsBlocked.addAndGet(requests);
+        TestListener.log("[LEAN] " + testName + " - Requests blocked: " + requests + " (" + describe(blocked) + ")");
+    }
+
+    public static void logSummary() {
+        if (totalRequestsBlocked.get() == 0) {
+            return;
+        }
+        Map<String, Long> byType = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> type : totalBlockedByType.entrySet()) {
+            byType.put(type.getKey(), type.getValue().get());
+        }
+        TestListener.log("LEAN MODE:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Blocked patterns: " + blockedPatterns.size() + " | Requests blocked: " +
+            totalRequestsBlocked.get() + " (" + describe(byType) + ")");
+        TestListener.log("");
+    }
+
+    private static String describe(Map<String, Long> byType) {
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, Long> type : byType.entrySet()) {
+            parts.add(type.getKey() + ": " + type.getValue());
+        }
+        return String.join(", ", parts);
+    }
+
+    private static List<String> buildBlockedPatterns() {
+        Set<String> patterns = new LinkedHashSet<>(ConfigReader.getLeanBlockedUrls());
+        for (String type : ConfigReader.getLeanBlockedTypes()) {
+            patterns.addAll(TYPE_PATTERNS.getOrDefault(type, List.of()));
+        }
+        return List.copyOf(patterns);
+    }
+
+    // Blocked requests per CDP resource type (Image, Font, Script...), fed from the DevTools thread.
+    private static class BlockCounter {
+        private final Map<String, Long> blocked = new TreeMap<>();
+
+        synchronized void onLoadingFailed(Map<String, Object> event) {
+            if (event.get("blockedReason") == null) {
+                return;
+            }
+            Object type = event.get("type");
+            blocked.merge(type == null ? "Other" : String.valueOf(type), 1L, Long::sum);
+        }
+
+        synchronized Map<String, Long> take() {
+            Map<String, Long> taken = new TreeMap<>(blocked);
+            blocked.clear();
+            return taken;
+        }
+    }
+}
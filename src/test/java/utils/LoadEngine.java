@@ -0,0 +1,187 @@
+package utils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Runs the storefront journey as many concurrent VirtualUsers over HTTP. Users start evenly spread
+// over the ramp-up period and loop through the journey, pausing between steps, until the duration
+// is up. Each user is a platform thread with a small stack; the build targets Java 11, so there are
+// no virtual threads to use, and a thread per user is still cheap into the low thousands.
+public class LoadEngine {
+    private final int users;
+    private final Duration rampUp;
+    private final Duration duration;
+    private final Duration thinkTime;
+    private final URI baseUri;
+    private final Map<String, StepStats> stepStats = new LinkedHashMap<>();
+    private final AtomicLong completedJourneys = new AtomicLong();
+    private final AtomicLong failedJourneys = new AtomicLong();
+    private long elapsedNanos;
+
+    public LoadEngine(String baseUrl, int users, Duration rampUp, Duration duration, Duration thinkTime) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.users = users;
+        this.rampUp = rampUp;
+        this.duration = duration;
+        this.thinkTime = thinkTime;
+        for (String step : VirtualUser.STEPS) {
+            stepStats.put(step, new StepStats());
+        }
+    }
+
+    public static LoadEngine fromConfig() {
+        return new LoadEngine(ConfigReader.getUrl(), ConfigReader.getLoadUsers(),
+            Duration.ofSeconds(ConfigReader.getLoadRampUpSeconds()),
+            Duration.ofSeconds(ConfigReader.getLoadDurationSeconds()),
+            Duration.ofMillis(ConfigReader.getLoadThinkTimeMs()));
+    }
+
+    public void run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .build();
+        long stackBytes = ConfigReader.getLoadThreadStackKb() * 1024L;
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        VirtualUser.StepListener listener = new VirtualUser.StepListener() {
+            @Override
+            public void onStep(String step, long nanos, boolean success) {
+                stepStats.get(step).record(nanos, success);
+            }
+
+            @Override
+            public void onUnreachable(String step) {
+                stepStats.get(step).recordUnreachable();
+            }
+        };
+
+        TestListener.log("Load test: " + users + " users against " + baseUri + " | Ramp-up: " + rampUp.getSeconds() +
+            "s | Duration: " + duration.getSeconds() + "s | Think time: " + thinkTime.toMillis() + "ms");
+        List<Thread> threads = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            long startAt = started + (users == 1 ? 0 : rampUp.toNanos() * i / users);
+            Thread thread = new Thread(null, () -> runUser(client, listener, startAt, deadline), "vu-" + (i + 1), stackBytes);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        // Journeys in flight at the deadline are allowed to finish, within one request timeout.
+        long joinDeadline = deadline + Duration.ofSeconds(ConfigReader.getTimeout()).toNanos();
+        for (Thread thread : threads) {
+            long remainingMillis = (joinDeadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis > 0) {
+                thread.join(remainingMillis);
+            }
+            thread.interrupt();
+        }
+        elapsedNanos = System.nanoTime() - started;
+    }
+
+    private void runUser(HttpClient client, VirtualUser.StepListener listener, long startAt, long deadline) {
+        VirtualUser user = new VirtualUser(client, baseUri);
+        try {
+            long delayMillis = (startAt - System.nanoTime()) / 1_000_000;
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            while (System.nanoTime() < deadline) {
+                if (user.runIteration(listener, thinkTime)) {
+                    completedJourneys.incrementAndGet();
+                } else {
+                    failedJourneys.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getCompletedJourneys() {
+        return completedJourneys.get();
+    }
+
+    public long getFailedJourneys() {
+        return failedJourneys.get();
+    }
+
+    public double getErrorRate() {
+        long steps = 0;
+        long errors = 0;
+        for (StepStats stats : stepStats.values()) {
+            steps += stats.count.get() + stats.unreachable.get();
+            errors += stats.errors.get() + stats.unreachable.get();
+        }
+        return steps == 0 ? 0.0 : (double) errors / steps;
+    }
+
+    public void logSummary() {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        TestListener.log("LOAD TEST RESULTS:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Users: " + users + " | Elapsed: " + String.format("%.1fs", seconds) +
+            " | Journeys completed: " + completedJourneys.get() + " | Journeys failed: " + failedJourneys.get() +
+            " | Throughput: " + String.format("%.2f", completedJourneys.get() / seconds) + " journeys/s");
+        TestListener.log("Step | requests | errors | unreachable | req/s | p50 / p95 / p99 / max (ms)");
+        for (Map.Entry<String, StepStats> entry : stepStats.entrySet()) {
+            StepStats stats = entry.getValue();
+            TestListener.log(entry.getKey() + " | " + stats.count.get() + " | " + stats.errors.get() + " | " +
+                stats.unreachable.get() + " | " +
+                String.format("%.2f", stats.count.get() / seconds) + " | " +
+                stats.percentile(50) + " / " + stats.percentile(95) + " / " + stats.percentile(99) + " / " +
+                stats.maxMillis.get());
+        }
+        TestListener.log("");
+    }
+
+    // Latencies in 1 ms buckets up to a minute, so recording is a single atomic increment and
+    // percentiles stay exact to the millisecond however many requests are made. Unreachable steps
+    // (no link to follow) count as errors but were never requested, so they have no latency.
+    private static class StepStats {
+        private static final int MAX_TRACKED_MILLIS = 60_000;
+
+        final AtomicLongArray buckets = new AtomicLongArray(MAX_TRACKED_MILLIS + 1);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong unreachable = new AtomicLong();
+        final AtomicLong maxMillis = new AtomicLong();
+
+        void record(long nanos, boolean success) {
+            long millis = nanos / 1_000_000;
+            buckets.incrementAndGet((int) Math.min(millis, MAX_TRACKED_MILLIS));
+            count.incrementAndGet();
+            maxMillis.accumulateAndGet(millis, Math::max);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        void recordUnreachable() {
+            unreachable.incrementAndGet();
+        }
+
+        long percentile(int percentile) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int millis = 0; millis < buckets.length(); millis++) {
+                seen += buckets.get(millis);
+                if (seen >= rank) {
+                    return millis;
+                }
+            }
+            return MAX_TRACKED_MILLIS;
+        }
+    }
+}
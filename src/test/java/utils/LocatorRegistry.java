@@ -0,0 +1,356 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// Remembers which fallback selector actually matched for each page/locator group and
+// persists it between runs, so the winner is tried first and dead selectors go last.
+// Candidates are declared most specific first, and only candidates of equal specificity
+// trade places: a broad selector never jumps ahead of a narrower one that may still match.
+// Counts carried over from earlier runs decay, so a selector that stops matching loses its
+// lead within a few runs, and one that misses several times in a row is demoted at once.
+public class LocatorRegistry {
+    private static final int DEAD_AFTER_CONSECUTIVE_MISSES = 3;
+    // Share of the stored counts each run carries forward.
+    private static final double DECAY = 0.75;
+    private static final String KEY_SEPARATOR = "|";
+    private static final Pattern ATTRIBUTE_SELECTOR = Pattern.compile("\\[[^\\]]*\\]");
+
+    private static final Map<String, Map<String, SelectorStats>> registry = new ConcurrentSkipListMap<>();
+    private static final Map<String, AtomicLong> probesAvoided = new ConcurrentHashMap<>();
+    private static final Map<String, int[]> specificities = new ConcurrentHashMap<>();
+
+    static {
+        load();
+    }
+
+    public static <T> List<T> order(String locatorKey, List<T> declared) {
+        Map<String, SelectorStats> stats = statsFor(locatorKey);
+        Comparator<T> byRecord = Comparator
+            .comparing((T candidate) -> isDead(stats.get(candidate.toString())))
+            .thenComparing(candidate -> -hits(stats.get(candidate.toString())))
+            .thenComparing(candidate -> misses(stats.get(candidate.toString())));
+        List<T> ordered = new ArrayList<>(declared.size());
+        int runStart = 0;
+        for (int i = 1; i <= declared.size(); i++) {
+            if (i == declared.size() || !Arrays.equals(specificity(declared.get(i)), specificity(declared.get(runStart)))) {
+                List<T> run = new ArrayList<>(declared.subList(runStart, i));
+                run.sort(byRecord);
+                ordered.addAll(run);
+                runStart = i;
+            }
+        }
+        return ordered;
+    }
+
+    public static void recordHit(String locatorKey, Object candidate, int declaredIndex, int attempt) {
+        SelectorStats selectorStats = stats(locatorKey, candidate);
+        selectorStats.hits.incrementAndGet();
+        selectorStats.consecutiveMisses.set(0);
+        probesAvoided.computeIfAbsent(locatorKey, k -> new AtomicLong()).addAndGet(declaredIndex - attempt);
+    }
+
+    public static void recordMiss(String locatorKey, Object candidate, long elapsedNanos) {
+        SelectorStats selectorStats = stats(locatorKey, candidate);
+        selectorStats.misses.incrementAndGet();
+        selectorStats.missNanos.addAndGet(elapsedNanos);
+        selectorStats.consecutiveMisses.incrementAndGet();
+    }
+
+    public static synchronized void save() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Map<String, SelectorStats>> group : registry.entrySet()) {
+            for (Map.Entry<String, SelectorStats> entry : group.getValue().entrySet()) {
+                SelectorStats stats = entry.getValue();
+                properties.setProperty(group.getKey() + KEY_SEPARATOR + entry.getKey(), format(new long[] {
+                    stats.hits.get(), stats.misses.get(), stats.missNanos.get(), stats.consecutiveMisses.get()}));
+            }
+        }
+        try {
+            store(properties, Paths.get(ConfigReader.getLocatorStatsFile()));
+        } catch (IOException e) {
+            System.err.println("Failed to save locator statistics: " + e.getMessage());
+        }
+    }
+
+    // Shard workers each save to their own copy of the stats file, seeded from the shared one. The
+    // coordinator adds what every copy gained over the (decayed) shared file, so no worker's counts
+    // are lost. A selector stays alive if any worker that used it last found it.
+    static void mergeWorkerCopies(List<byte[]> copies) throws IOException {
+        Path file = Paths.get(ConfigReader.getLocatorStatsFile());
+        Properties shared = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                shared.load(in);
+            }
+        }
+        Map<String, long[]> bases = new HashMap<>();
+        Map<String, long[]> merged = new HashMap<>();
+        for (String key : shared.stringPropertyNames()) {
+            long[] base = parse(shared.getProperty(key));
+            if (base != null) {
+                bases.put(key, decayed(base));
+                merged.put(key, decayed(base));
+            }
+        }
+        Map<String, Long> streaks = new HashMap<>();
+        for (byte[] copy : copies) {
+            Properties worker = new Properties();
+            worker.load(new ByteArrayInputStream(copy));
+            for (String key : worker.stringPropertyNames()) {
+                long[] counted = parse(worker.getProperty(key));
+                if (counted == null) {
+                    continue;
+                }
+                long[] base = bases.getOrDefault(key, new long[4]);
+                long[] total = merged.computeIfAbsent(key, k -> base.clone());
+                boolean used = false;
+                for (int i = 0; i < 3; i++) {
+                    long gained = Math.max(0, counted[i] - base[i]);
+                    total[i] += gained;
+                    used |= gained > 0;
+                }
+                if (used) {
+                    streaks.merge(key, counted[3], Math::min);
+                }
+            }
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] values = entry.getValue();
+            values[3] = streaks.getOrDefault(entry.getKey(), values[3]);
+            properties.setProperty(entry.getKey(), format(values));
+        }
+        store(properties, file);
+    }
+
+    // Written to a temporary file and moved into place, so a reader never sees half a file.
+    private static void store(Properties properties, Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), "locator-stats", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Locator fallback statistics: hits,misses,missNanos,consecutiveMisses");
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Files written before consecutive misses were tracked have three values.
+    private static long[] parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] values = value.split(",");
+        if (values.length != 3 && values.length != 4) {
+            return null;
+        }
+        try {
+            long[] parsed = new long[4];
+            for (int i = 0; i < values.length; i++) {
+                parsed[i] = Long.parseLong(values[i].trim());
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String format(long[] values) {
+        return values[0] + "," + values[1] + "," + values[2] + "," + values[3];
+    }
+
+    // Counts as carried into a new run; the current miss streak is kept as it is.
+    private static long[] decayed(long[] values) {
+        return new long[] {Math.round(values[0] * DECAY), Math.round(values[1] * DECAY),
+            Math.round(values[2] * DECAY), values[3]};
+    }
+
+    public static void logSummary() {
+        if (registry.isEmpty()) {
+            return;
+        }
+        TestListener.log("LOCATOR FALLBACK STATISTICS:");
+        TestListener.log("-".repeat(40));
+        for (Map.Entry<String, Map<String, SelectorStats>> group : registry.entrySet()) {
+            Map<String, SelectorStats> stats = group.getValue();
+            long avoided = probesAvoided.getOrDefault(group.getKey(), new AtomicLong()).get();
+            TestListener.log(group.getKey() + " | Probes avoided this run: " + avoided +
+                " (~" + String.format("%.1f", avoided * averageMissMillis(stats)) + "ms)");
+            for (String selector : order(group.getKey(), new ArrayList<>(stats.keySet()))) {
+                SelectorStats selectorStats = stats.get(selector);
+                TestListener.log("   " + selector + " | Hits: " + selectorStats.hits.get() +
+                    " | Misses: " + selectorStats.misses.get() +
+                    (isDead(selectorStats) ? " | DEMOTED" : ""));
+            }
+        }
+        TestListener.log("");
+    }
+
+    private static double averageMissMillis(Map<String, SelectorStats> stats) {
+        long misses = 0;
+        long nanos = 0;
+        for (SelectorStats selectorStats : stats.values()) {
+            misses += selectorStats.misses.get();
+            nanos += selectorStats.missNanos.get();
+        }
+        return misses == 0 ? 0.0 : nanos / 1_000_000.0 / misses;
+    }
+
+    // CSS-style (ids, classes/attributes/pseudo-classes, element names) for a By or a CSS string.
+    // A selector list is as specific as its broadest member. XPath is approximated: @id tests count
+    // as ids, other predicates as classes and named steps as elements.
+    static int[] specificity(Object candidate) {
+        return specificities.computeIfAbsent(candidate.toString(), LocatorRegistry::computeSpecificity);
+    }
+
+    private static int[] computeSpecificity(String locator) {
+        if (locator.startsWith("By.id: ")) {
+            return new int[] {1, 0, 0};
+        }
+        if (locator.startsWith("By.className: ") || locator.startsWith("By.name: ")) {
+            return new int[] {0, 1, 0};
+        }
+        if (locator.startsWith("By.tagName: ")) {
+            return new int[] {0, 0, 1};
+        }
+        if (locator.startsWith("By.xpath: ")) {
+            return xpathSpecificity(locator.substring("By.xpath: ".length()));
+        }
+        if (locator.startsWith("By.cssSelector: ")) {
+            return cssSpecificity(locator.substring("By.cssSelector: ".length()));
+        }
+        if (locator.startsWith("By.")) {
+            return new int[] {0, 0, 0};
+        }
+        return cssSpecificity(locator);
+    }
+
+    private static int[] cssSpecificity(String selector) {
+        int[] broadest = null;
+        for (String part : ATTRIBUTE_SELECTOR.matcher(selector).replaceAll("[]").split(",")) {
+            String simple = part.trim();
+            int[] specificity = new int[3];
+            for (int i = 0; i < simple.length(); i++) {
+                char c = simple.charAt(i);
+                if (c == '#') {
+                    specificity[0]++;
+                } else if (c == '.' || c == '[') {
+                    specificity[1]++;
+                } else if (c == ':') {
+                    if (i + 1 < simple.length() && simple.charAt(i + 1) == ':') {
+                        specificity[2]++;
+                        i++;
+                    } else {
+                        specificity[1]++;
+                    }
+                } else if (Character.isLetter(c) && (i == 0 || " >+~".indexOf(simple.charAt(i - 1)) >= 0)) {
+                    specificity[2]++;
+                }
+            }
+            if (broadest == null || Arrays.compare(specificity, broadest) < 0) {
+                broadest = specificity;
+            }
+        }
+        return broadest == null ? new int[3] : broadest;
+    }
+
+    private static int[] xpathSpecificity(String xpath) {
+        int[] specificity = new int[3];
+        int depth = 0;
+        boolean stepStart = true;
+        for (int i = 0; i < xpath.length(); i++) {
+            char c = xpath.charAt(i);
+            if (c == '[') {
+                if (depth == 0) {
+                    specificity[xpath.startsWith("[@id", i) ? 0 : 1]++;
+                }
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (depth == 0) {
+                if (c == '/') {
+                    stepStart = true;
+                } else if (stepStart && Character.isLetter(c)) {
+                    specificity[2]++;
+                    stepStart = false;
+                } else if (stepStart && c == '*') {
+                    stepStart = false;
+                }
+            }
+        }
+        return specificity;
+    }
+
+    // Drops a locator group, so unit tests leave nothing behind for the suite's save().
+    static void forget(String locatorKey) {
+        registry.remove(locatorKey);
+        probesAvoided.remove(locatorKey);
+    }
+
+    private static Map<String, SelectorStats> statsFor(String locatorKey) {
+        return registry.computeIfAbsent(locatorKey, k -> new ConcurrentHashMap<>());
+    }
+
+    private static SelectorStats stats(String locatorKey, Object candidate) {
+        return statsFor(locatorKey).computeIfAbsent(candidate.toString(), k -> new SelectorStats());
+    }
+
+    private static boolean isDead(SelectorStats stats) {
+        return stats != null && stats.consecutiveMisses.get() >= DEAD_AFTER_CONSECUTIVE_MISSES;
+    }
+
+    private static long hits(SelectorStats stats) {
+        return stats == null ? 0 : stats.hits.get();
+    }
+
+    private static long misses(SelectorStats stats) {
+        return stats == null ? 0 : stats.misses.get();
+    }
+
+    private static void load() {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(ConfigReader.getLocatorStatsFile())) {
+            properties.load(fis);
+        } catch (IOException e) {
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.indexOf(KEY_SEPARATOR);
+            long[] values = parse(properties.getProperty(key));
+            if (separator < 0 || values == null) {
+                continue;
+            }
+            long[] carried = decayed(values);
+            SelectorStats stats = stats(key.substring(0, separator), key.substring(separator + 1));
+            stats.hits.set(carried[0]);
+            stats.misses.set(carried[1]);
+            stats.missNanos.set(carried[2]);
+            stats.consecutiveMisses.set(carried[3]);
+        }
+    }
+
+    private static class SelectorStats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong missNanos = new AtomicLong();
+        final AtomicLong consecutiveMisses = new AtomicLong();
+    }
+}
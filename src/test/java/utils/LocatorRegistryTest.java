@@ -0,0 +1,57 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class LocatorRegistryTest {
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        LocatorRegistry.forget("LocatorRegistryTest.broad");
+        LocatorRegistry.forget("LocatorRegistryTest.demote");
+    }
+
+    @Test
+    public void broadCandidatesNeverJumpAheadOfNarrowerOnes() {
+        String key = "LocatorRegistryTest.broad";
+        List<String> declared = List.of(".product-name h1", ".productname h1", "h1");
+        for (int i = 0; i < 10; i++) {
+            LocatorRegistry.recordHit(key, "h1", 2, 2);
+        }
+        LocatorRegistry.recordHit(key, ".productname h1", 1, 1);
+        Assert.assertEquals(LocatorRegistry.order(key, declared), List.of(".productname h1", ".product-name h1", "h1"));
+    }
+
+    @Test
+    public void consecutiveMissesDemoteDespiteEarlierHits() {
+        String key = "LocatorRegistryTest.demote";
+        List<String> declared = List.of(".btn-orange", ".btn-primary", ".continue");
+        for (int i = 0; i < 5; i++) {
+            LocatorRegistry.recordHit(key, ".btn-orange", 0, 0);
+        }
+        Assert.assertEquals(LocatorRegistry.order(key, declared).get(0), ".btn-orange");
+        for (int i = 0; i < 3; i++) {
+            LocatorRegistry.recordMiss(key, ".btn-orange", 1_000_000);
+        }
+        Assert.assertEquals(LocatorRegistry.order(key, declared), List.of(".btn-primary", ".continue", ".btn-orange"));
+
+        LocatorRegistry.recordHit(key, ".btn-orange", 0, 2);
+        Assert.assertEquals(LocatorRegistry.order(key, declared).get(0), ".btn-orange");
+    }
+
+    @Test
+    public void specificityFollowsCssRules() {
+        Assert.assertEquals(LocatorRegistry.specificity(By.id("product-name")), new int[] {1, 0, 0});
+        Assert.assertEquals(LocatorRegistry.specificity("input[value*='Continue.']"), new int[] {0, 1, 1});
+        // A selector list counts as its broadest member.
+        Assert.assertEquals(LocatorRegistry.specificity(By.cssSelector(".product-name h1, .productname h1, h1")),
+            new int[] {0, 0, 1});
+        Assert.assertEquals(LocatorRegistry.specificity(By.xpath("//td[contains(text(),'Total')]/following-sibling::td")),
+            new int[] {0, 1, 2});
+        Assert.assertEquals(LocatorRegistry.specificity(By.xpath("//*[contains(text(),'Total')]")), new int[] {0, 1, 0});
+    }
+}
@@ -0,0 +1,19 @@
+package utils;
+
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    public static LogLevel fromString(String value, LogLevel defaultLevel) {
+        if (value == null) {
+            return defaultLevel;
+        }
+        try {
+            return LogLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
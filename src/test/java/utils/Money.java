@@ -0,0 +1,159 @@
+package utils;
+
+// Storefront amounts as whole cents. Parsing is a single pass over the characters with no regex
+// and no intermediate strings, so totals add up exactly and hot loops do not allocate.
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+    // Returned by parseCents when the text holds no amount at all.
+    public static final long NOT_A_PRICE = Long.MIN_VALUE;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money parse(CharSequence text) {
+        long cents = parseCents(text);
+        if (cents == NOT_A_PRICE) {
+            throw new IllegalArgumentException("Not a price: " + text);
+        }
+        return ofCents(cents);
+    }
+
+    // Reads the first amount in the text: "$1,234.50", "1.234,50 €", "USD 12", "-$3.5", "$.99".
+    // Currency symbols, codes and surrounding words are skipped. '.' and ',' are both accepted;
+    // the last one counts as the decimal point when one or two digits follow it and it is a '.' or
+    // follows '.' grouping. Every other separator is grouping and must be followed by exactly three
+    // digits ("$1,234" is 123400 cents, "$1,23" and "1,23,456" are not prices).
+    public static long parseCents(CharSequence text) {
+        if (text == null) {
+            return NOT_A_PRICE;
+        }
+        int length = text.length();
+        long units = 0;
+        int digits = 0;
+        int digitsAfterSeparator = 0;
+        char lastSeparator = 0;
+        char groupingSeparator = 0;
+        boolean inNumber = false;
+        boolean negative = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (units > (Long.MAX_VALUE / 100 - 9) / 10) {
+                    return NOT_A_PRICE;
+                }
+                units = units * 10 + (c - '0');
+                digits++;
+                digitsAfterSeparator++;
+                inNumber = true;
+            } else if ((c == '.' || c == ',') && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                // Only a separator when a digit follows: "$12.50." ends at the second '.'
+                if (lastSeparator != 0) {
+                    // A separator followed by another one is grouping: "1,234.50", not "1,23,456"
+                    if (digitsAfterSeparator != 3
+                            || (groupingSeparator != 0 && groupingSeparator != lastSeparator)) {
+                        return NOT_A_PRICE;
+                    }
+                    groupingSeparator = lastSeparator;
+                }
+                lastSeparator = c;
+                digitsAfterSeparator = 0;
+                inNumber = true;
+            } else if (inNumber) {
+                break;
+            } else if (c == '-' || c == '\u2212') {
+                // A sign only right before the number or its currency symbol: "-$3.50", not "Price - $5.00"
+                negative = i + 1 < length && startsAmount(text, i + 1);
+            } else if (Character.isLetter(c)) {
+                // "Sub-Total: $5.00" is not negative
+                negative = false;
+            }
+        }
+
+        if (digits == 0) {
+            return NOT_A_PRICE;
+        }
+        boolean decimal = lastSeparator != 0 && lastSeparator != groupingSeparator
+                && (lastSeparator == '.' || groupingSeparator != 0);
+        long cents;
+        if (lastSeparator == 0) {
+            cents = units * 100;
+        } else if (decimal && digitsAfterSeparator == 1) {
+            cents = units * 10;
+        } else if (decimal && digitsAfterSeparator == 2) {
+            cents = units;
+        } else if (digitsAfterSeparator == 3 && (groupingSeparator == 0 || groupingSeparator == lastSeparator)) {
+            cents = units * 100;
+        } else {
+            return NOT_A_PRICE;
+        }
+        return negative ? -cents : cents;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    // "$1,234.50", matching how the storefront prints prices.
+    @Override
+    public String toString() {
+        long absolute = Math.abs(cents);
+        String whole = Long.toString(absolute / 100);
+        StringBuilder formatted = new StringBuilder(whole.length() + 8);
+        if (cents < 0) {
+            formatted.append('-');
+        }
+        formatted.append('$');
+        for (int i = 0; i < whole.length(); i++) {
+            if (i > 0 && (whole.length() - i) % 3 == 0) {
+                formatted.append(',');
+            }
+            formatted.append(whole.charAt(i));
+        }
+        long fraction = absolute % 100;
+        formatted.append('.').append(fraction < 10 ? "0" : "").append(fraction);
+        return formatted.toString();
+    }
+
+    private static boolean startsAmount(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (isDigit(c) || Character.getType(c) == Character.CURRENCY_SYMBOL) {
+            return true;
+        }
+        return (c == '.' || c == ',') && index + 1 < text.length() && isDigit(text.charAt(index + 1));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,55 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MoneyTest {
+
+    @Test
+    public void parsesStorefrontFormats() {
+        Assert.assertEquals(Money.parseCents("$1,234.50"), 123450);
+        Assert.assertEquals(Money.parseCents("1.234,50 €"), 123450);
+        Assert.assertEquals(Money.parseCents("USD 12"), 1200);
+        Assert.assertEquals(Money.parseCents("$1,234"), 123400);
+        Assert.assertEquals(Money.parseCents("$.99"), 99);
+        Assert.assertEquals(Money.parseCents("$3.5"), 350);
+        Assert.assertEquals(Money.parseCents("no price here"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents(null), Money.NOT_A_PRICE);
+    }
+
+    @Test
+    public void rejectsMalformedGrouping() {
+        Assert.assertEquals(Money.parseCents("$1,23"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents("$1,2345"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents("1,23,456"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents("1.234.50"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents("1,234.567"), Money.NOT_A_PRICE);
+        Assert.assertEquals(Money.parseCents("$1,234,567.89"), 123456789);
+        Assert.assertEquals(Money.parseCents("1.234.567,8 €"), 123456780);
+    }
+
+    @Test
+    public void trailingSeparatorEndsTheAmount() {
+        Assert.assertEquals(Money.parseCents("$12.50."), 1250);
+        Assert.assertEquals(Money.parseCents("$1,234.50."), 123450);
+        Assert.assertEquals(Money.parseCents("Total: $5.00, incl tax"), 500);
+        Assert.assertEquals(Money.parseCents("$12."), 1200);
+    }
+
+    @Test
+    public void minusOnlyCountsNextToTheAmount() {
+        Assert.assertEquals(Money.parseCents("-$3.5"), -350);
+        Assert.assertEquals(Money.parseCents("$-3.50"), -350);
+        Assert.assertEquals(Money.parseCents("-12"), -1200);
+        Assert.assertEquals(Money.parseCents("Discount: −2.00"), -200);
+        Assert.assertEquals(Money.parseCents("Price - $5.00"), 500);
+        Assert.assertEquals(Money.parseCents("Sub-Total: $5.00"), 500);
+    }
+
+    @Test
+    public void formatsLikeTheStorefront() {
+        Assert.assertEquals(Money.ofCents(123450).toString(), "$1,234.50");
+        Assert.assertEquals(Money.ofCents(-5).toString(), "-$0.05");
+        Assert.assertEquals(Money.parse("$7.10").plus(Money.ofCents(90)).times(2), Money.ofCents(1600));
+    }
+}
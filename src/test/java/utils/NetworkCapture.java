@@ -0,0 +1,409 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Streams each test's network traffic to its own HAR file through Chrome DevTools. Listeners are
+// attached once per browser session and stream every request to the file as soon as it finishes, so
+// only in-flight requests, the write buffer and the few slowest ones are held in memory however long
+// the run is.
+// Raw CDP event names are used so the capture does not depend on one versioned DevTools binding.
+public class NetworkCapture {
+    private static final Json JSON = new Json();
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+
+    private static final Map<WebDriver, NetworkCapture> captures = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final Queue<Result> results = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, PendingRequest> pending = new HashMap<>();
+    private HarFile har;
+
+    public static boolean isEnabled() {
+        return ConfigReader.isHarEnabled();
+    }
+
+    public static void attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            System.out.println("HAR capture needs Chrome DevTools; not available for " + driver.getClass().getSimpleName());
+            return;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            NetworkCapture capture = new NetworkCapture();
+            devTools.addListener(event("Network.requestWillBeSent"), capture::onRequestWillBeSent);
+            devTools.addListener(event("Network.responseReceived"), capture::onResponseReceived);
+            devTools.addListener(event("Network.loadingFinished"), capture::onLoadingFinished);
+            devTools.addListener(event("Network.loadingFailed"), capture::onLoadingFailed);
+            devTools.send(new Command<Void>("Network.enable", Map.of()));
+            captures.put(driver, capture);
+        } catch (Exception e) {
+            System.err.println("Failed to start HAR capture: " + e.getMessage());
+        }
+    }
+
+    // The test may open its browser only after it has started, so the name is kept until then.
+    public static void beginTest(WebDriver driver, String testName) {
+        currentTest.set(testName);
+        if (driver != null) {
+            startRecording(driver);
+        }
+    }
+
+    // Called when DriverFactory hands a session to this thread in the middle of a test.
+    public static void startRecording(WebDriver driver) {
+        String testName = currentTest.get();
+        NetworkCapture capture = captures.get(driver);
+        if (testName != null && capture != null) {
+            capture.open(testName);
+        }
+    }
+
+    // Closes the test's HAR file and returns what it recorded, or null when nothing was captured.
+    public static Result endTest(WebDriver driver) {
+        currentTest.remove();
+        NetworkCapture capture = driver == null ? null : captures.get(driver);
+        if (capture == null) {
+            return null;
+        }
+        Result result = capture.close();
+        if (result == null) {
+            return null;
+        }
+        results.add(result);
+        TestListener.log("[HAR] " + result.testName + " - Requests: " + result.requests + " | Failed: " +
+            result.failedRequests + " | In flight at end: " + result.unfinishedRequests + " | File: " + result.path);
+        for (Entry entry : result.slowest) {
+            TestListener.log("   " + entry.describe());
+        }
+        return result;
+    }
+
+    public static void logSummary() {
+        if (results.isEmpty()) {
+            return;
+        }
+        TestListener.log("NETWORK (slowest requests per test):");
+        TestListener.log("-".repeat(40));
+        for (Result result : results) {
+            TestListener.log(result.testName + " | Requests: " + result.requests + " | Failed: " +
+                result.failedRequests + " | " + result.path);
+            for (Entry entry : result.slowest) {
+                TestListener.log("   " + entry.describe());
+            }
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        results.clear();
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    private synchronized void open(String testName) {
+        if (har != null && har.testName.equals(testName)) {
+            return;
+        }
+        if (har != null) {
+            close();
+        }
+        pending.clear();
+        try {
+            Path path = Paths.get(ConfigReader.getHarDir(),
+                testName + "_" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".har");
+            har = new HarFile(testName, path);
+        } catch (IOException e) {
+            System.err.println("Failed to open HAR file for " + testName + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized Result close() {
+        if (har == null) {
+            return null;
+        }
+        HarFile finished = har;
+        har = null;
+        int unfinished = pending.size();
+        pending.clear();
+        try {
+            finished.finish();
+        } catch (IOException e) {
+            System.err.println("Failed to complete HAR file " + finished.path + ": " + e.getMessage());
+        }
+        List<Entry> slowest = new ArrayList<>(finished.slowest);
+        slowest.sort(Comparator.comparingDouble((Entry entry) -> entry.millis).reversed());
+        return new Result(finished.testName, finished.path.toString(), finished.requests, finished.failedRequests,
+            unfinished, slowest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void onRequestWillBeSent(Map<String, Object> event) {
+        if (har == null) {
+            return;
+        }
+        String requestId = String.valueOf(event.get("requestId"));
+        PendingRequest previous = pending.remove(requestId);
+        // A redirect reuses the request id; the hop that led here is complete now.
+        if (previous != null && event.get("redirectResponse") instanceof Map) {
+            previous.response = (Map<String, Object>) event.get("redirectResponse");
+            write(previous, number(event.get("timestamp")), null);
+        }
+        pending.put(requestId, new PendingRequest((Map<String, Object>) event.get("request"),
+            number(event.get("timestamp")), number(event.get("wallTime")), String.valueOf(event.get("type"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void onResponseReceived(Map<String, Object> event) {
+        PendingRequest request = pending.get(String.valueOf(event.get("requestId")));
+        if (request != null) {
+            request.response = (Map<String, Object>) event.get("response");
+        }
+    }
+
+    private synchronized void onLoadingFinished(Map<String, Object> event) {
+        PendingRequest request = pending.remove(String.valueOf(event.get("requestId")));
+        if (request != null) {
+            request.encodedDataLength = (long) number(event.get("encodedDataLength"));
+            write(request, number(event.get("timestamp")), null);
+        }
+    }
+
+    private synchronized void onLoadingFailed(Map<String, Object> event) {
+        PendingRequest request = pending.remove(String.valueOf(event.get("requestId")));
+        if (request != null) {
+            write(request, number(event.get("timestamp")), String.valueOf(event.get("errorText")));
+        }
+    }
+
+    private void write(PendingRequest request, double endTimestamp, String error) {
+        if (har == null) {
+            return;
+        }
+        double millis = Math.max(0, (endTimestamp - request.timestamp) * 1000);
+        try {
+            har.append(request.toHarEntry(millis, error), new Entry(request.method(), request.url(), request.status(),
+                millis, error));
+        } catch (IOException e) {
+            System.err.println("Failed to write HAR entry: " + e.getMessage());
+        }
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    // One HAR document written as it grows: header, comma-separated entries, then the closing brackets.
+    private static class HarFile {
+        // Entries reach the disk whenever this much has been buffered and at finish(), not one
+        // flush per request on the DevTools event thread.
+        private static final int BUFFER_CHARS = 64 * 1024;
+
+        final String testName;
+        final Path path;
+        final BufferedWriter writer;
+        final PriorityQueue<Entry> slowest = new PriorityQueue<>(Comparator.comparingDouble((Entry entry) -> entry.millis));
+        int requests;
+        int failedRequests;
+
+        HarFile(String testName, Path path) throws IOException {
+            this.testName = testName;
+            this.path = path;
+            Files.createDirectories(path.getParent());
+            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8),
+                BUFFER_CHARS);
+            writer.write("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"ECommerce Automation\",\"version\":\"1.0\"}," +
+                "\"pages\":[],\"entries\":[\n");
+        }
+
+        void append(Map<String, Object> harEntry, Entry entry) throws IOException {
+            if (requests > 0) {
+                writer.write(",\n");
+            }
+            writer.write(JSON.toJson(harEntry));
+            requests++;
+            if (entry.error != null) {
+                failedRequests++;
+            }
+            slowest.add(entry);
+            if (slowest.size() > ConfigReader.getHarSlowestRequests()) {
+                slowest.poll();
+            }
+        }
+
+        void finish() throws IOException {
+            writer.write("\n]}}\n");
+            writer.close();
+        }
+    }
+
+    private static class PendingRequest {
+        final Map<String, Object> request;
+        final double timestamp;
+        final double wallTime;
+        final String resourceType;
+        Map<String, Object> response;
+        long encodedDataLength;
+
+        PendingRequest(Map<String, Object> request, double timestamp, double wallTime, String resourceType) {
+            this.request = request == null ? Map.of() : request;
+            this.timestamp = timestamp;
+            this.wallTime = wallTime;
+            this.resourceType = resourceType;
+        }
+
+        String method() {
+            return String.valueOf(request.getOrDefault("method", "GET"));
+        }
+
+        String url() {
+            return String.valueOf(request.get("url"));
+        }
+
+        int status() {
+            return response == null ? 0 : (int) number(response.get("status"));
+        }
+
+        Map<String, Object> toHarEntry(double millis, String error) {
+            String httpVersion = response == null ? "" : String.valueOf(response.getOrDefault("protocol", ""));
+            Map<String, Object> harRequest = new LinkedHashMap<>();
+            harRequest.put("method", method());
+            harRequest.put("url", url());
+            harRequest.put("httpVersion", httpVersion);
+            harRequest.put("cookies", List.of());
+            harRequest.put("headers", headers(request.get("headers")));
+            harRequest.put("queryString", List.of());
+            harRequest.put("headersSize", -1);
+            harRequest.put("bodySize", -1);
+
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("size", encodedDataLength);
+            content.put("mimeType", response == null ? "" : String.valueOf(response.getOrDefault("mimeType", "")));
+            Map<String, Object> harResponse = new LinkedHashMap<>();
+            harResponse.put("status", status());
+            harResponse.put("statusText", response == null ? "" : String.valueOf(response.getOrDefault("statusText", "")));
+            harResponse.put("httpVersion", httpVersion);
+            harResponse.put("cookies", List.of());
+            harResponse.put("headers", headers(response == null ? null : response.get("headers")));
+            harResponse.put("content", content);
+            harResponse.put("redirectURL", "");
+            harResponse.put("headersSize", -1);
+            harResponse.put("bodySize", encodedDataLength);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("startedDateTime", Instant.ofEpochMilli((long) (wallTime * 1000)).toString());
+            entry.put("time", millis);
+            entry.put("request", harRequest);
+            entry.put("response", harResponse);
+            entry.put("cache", Map.of());
+            entry.put("timings", timings(millis));
+            entry.put("_resourceType", resourceType);
+            if (error != null) {
+                entry.put("_error", error);
+            }
+            return entry;
+        }
+
+        // CDP timing offsets are milliseconds from the request start; HAR wants phase durations.
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> timings(double millis) {
+            Map<String, Object> timing = response != null && response.get("timing") instanceof Map
+                ? (Map<String, Object>) response.get("timing") : Map.of();
+            double sendEnd = number(timing.get("sendEnd"));
+            double headersEnd = number(timing.get("receiveHeadersEnd"));
+            Map<String, Object> timings = new LinkedHashMap<>();
+            timings.put("dns", phase(timing, "dnsStart", "dnsEnd"));
+            timings.put("connect", phase(timing, "connectStart", "connectEnd"));
+            timings.put("ssl", phase(timing, "sslStart", "sslEnd"));
+            timings.put("send", Math.max(0, phase(timing, "sendStart", "sendEnd")));
+            timings.put("wait", timing.isEmpty() ? millis : Math.max(0, headersEnd - sendEnd));
+            timings.put("receive", timing.isEmpty() ? 0 : Math.max(0, millis - headersEnd));
+            return timings;
+        }
+
+        private static double phase(Map<String, Object> timing, String start, String end) {
+            double startMillis = number(timing.getOrDefault(start, -1));
+            double endMillis = number(timing.getOrDefault(end, -1));
+            return startMillis < 0 || endMillis < 0 ? -1 : endMillis - startMillis;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Map<String, Object>> headers(Object raw) {
+            List<Map<String, Object>> headers = new ArrayList<>();
+            if (raw instanceof Map) {
+                for (Map.Entry<String, Object> header : ((Map<String, Object>) raw).entrySet()) {
+                    headers.add(Map.of("name", header.getKey(), "value", String.valueOf(header.getValue())));
+                }
+            }
+            return headers;
+        }
+    }
+
+    public static class Entry {
+        public final String method;
+        public final String url;
+        public final int status;
+        public final double millis;
+        public final String error;
+
+        Entry(String method, String url, int status, double millis, String error) {
+            this.method = method;
+            this.url = url;
+            this.status = status;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        public String describe() {
+            return String.format("%.0fms", millis) + " | " + method + " " + url + " | " +
+                (error != null ? "FAILED: " + error : String.valueOf(status));
+        }
+    }
+
+    public static class Result {
+        public final String testName;
+        public final String path;
+        public final int requests;
+        public final int failedRequests;
+        public final int unfinishedRequests;
+        public final List<Entry> slowest;
+
+        Result(String testName, String path, int requests, int failedRequests, int unfinishedRequests, List<Entry> slowest) {
+            this.testName = testName;
+            this.path = path;
+            this.requests = requests;
+            this.failedRequests = failedRequests;
+            this.unfinishedRequests = unfinishedRequests;
+            this.slowest = slowest;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Navigation Timing and Web Vitals samples per page type, with percentile aggregation for the
+// report and per-page-type budgets that fail the running test when exceeded.
+public class PagePerformance {
+    public static final List<String> METRICS = List.of("ttfb", "domContentLoaded", "load", "lcp", "cls", "resources");
+    private static final List<String> TIMING_METRICS = List.of("ttfb", "domContentLoaded", "load", "lcp");
+
+    private static final Map<String, Map<String, ConcurrentLinkedQueue<Double>>> samples = new ConcurrentSkipListMap<>();
+    private static final ThreadLocal<List<String>> budgetViolations = ThreadLocal.withInitial(ArrayList::new);
+
+    public static void record(String pageType, Map<String, Double> metrics) {
+        Map<String, ConcurrentLinkedQueue<Double>> pageSamples = samples.computeIfAbsent(pageType, k -> new ConcurrentHashMap<>());
+        StringBuilder line = new StringBuilder("[PERF] ").append(pageType);
+        for (String metric : METRICS) {
+            Double value = metrics.get(metric);
+            if (value == null) {
+                continue;
+            }
+            pageSamples.computeIfAbsent(metric, k -> new ConcurrentLinkedQueue<>()).add(value);
+            line.append(" | ").append(metric).append(": ").append(format(metric, value));
+            if (TIMING_METRICS.contains(metric)) {
+                RunHistory.recordStep(pageType + "." + metric, value);
+            }
+
+            Double budget = ConfigReader.getPerfBudget(pageType, metric);
+            if (budget != null && value > budget) {
+                budgetViolations.get().add(pageType + " " + metric + " " + format(metric, value) +
+                    " exceeds budget " + format(metric, budget));
+            }
+        }
+        TestListener.log(line.toString());
+    }
+
+    public static void clearViolations() {
+        budgetViolations.remove();
+    }
+
+    // Returns and clears the budget violations recorded on this thread since the last call.
+    public static List<String> takeViolations() {
+        List<String> violations = budgetViolations.get();
+        budgetViolations.remove();
+        return violations;
+    }
+
+    public static void logSummary() {
+        if (samples.isEmpty()) {
+            return;
+        }
+        TestListener.log("PAGE PERFORMANCE (p50 / p90 / p95 / max):");
+        TestListener.log("-".repeat(40));
+        for (Map.Entry<String, Map<String, ConcurrentLinkedQueue<Double>>> page : samples.entrySet()) {
+            StringBuilder line = new StringBuilder(page.getKey());
+            int count = 0;
+            for (String metric : METRICS) {
+                ConcurrentLinkedQueue<Double> values = page.getValue().get(metric);
+                if (values == null || values.isEmpty()) {
+                    continue;
+                }
+                List<Double> sorted = new ArrayList<>(values);
+                Collections.sort(sorted);
+                count = Math.max(count, sorted.size());
+                line.append(" | ").append(metric).append(": ")
+                    .append(format(metric, percentile(sorted, 50))).append(" / ")
+                    .append(format(metric, percentile(sorted, 90))).append(" / ")
+                    .append(format(metric, percentile(sorted, 95))).append(" / ")
+                    .append(format(metric, sorted.get(sorted.size() - 1)));
+            }
+            TestListener.log(line + " | samples: " + count);
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        samples.clear();
+    }
+
+    // Nearest-rank percentile over an already sorted list.
+    static double percentile(List<Double> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    private static String format(String metric, double value) {
+        switch (metric) {
+            case "cls":
+                return String.format("%.3f", value);
+            case "resources":
+                return String.valueOf((long) value);
+            default:
+                return String.format("%.0fms", value);
+        }
+    }
+}
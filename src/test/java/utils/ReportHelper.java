@@ -6,26 +6,26 @@ import java.util.List;
 import java.util.Map;
 
 public class ReportHelper {
-    private static List<ProductEntry> addedProducts = new ArrayList<>();
-    private static int cartItemCount = 0;
+    // Each worker thread drives its own browser session, so each one keeps its own cart ledger.
+    private static final ThreadLocal<CartLedger> cartLedger = ThreadLocal.withInitial(CartLedger::new);
 
     public static void addProductToReport(String productName, String price, String url) {
-        addedProducts.add(new ProductEntry(productName, price, url));
+        cartLedger.get().addedProducts.add(new ProductEntry(productName, price, url));
         TestListener.logProductInfo(productName, price, url);
     }
 
     public static void incrementCartCount() {
-        cartItemCount++;
+        cartLedger.get().cartItemCount++;
     }
 
     public static int getExpectedCartCount() {
-        return cartItemCount;
+        return cartLedger.get().cartItemCount;
     }
 
     public static Map<String, String> getAddedProducts() {
         Map<String, String> map = new HashMap<>();
         int idx = 1;
-        for (ProductEntry p : addedProducts) {
+        for (ProductEntry p : cartLedger.get().addedProducts) {
             String key = p.name;
             if (map.containsKey(key)) {
                 key = key + " (" + idx + ")";
@@ -36,53 +36,49 @@ public class ReportHelper {
         return map;
     }
 
-    public static double calculateExpectedTotal() {
-    double total = 0.0;
-    for (ProductEntry p : addedProducts) {
-        try {
-            String priceValue = p.price.replaceAll("[^0-9.]", "");
-            if (!priceValue.isEmpty()) {
-                double parsed = Double.parseDouble(priceValue);
-                if (parsed > 0 && parsed < 10000) { 
-                    total += parsed;
-                } else {
-                    TestListener.log("[WARNING] Ignoring suspicious price: " + p.price);
-                }
+    // Prices are parsed once when the product is added; the total is an exact sum of cents.
+    public static Money calculateExpectedTotal() {
+        long totalCents = 0;
+        for (ProductEntry p : cartLedger.get().addedProducts) {
+            if (p.cents > 0) {
+                totalCents += p.cents;
+            } else {
+                TestListener.log("[WARNING] Ignoring price that is not a positive amount: " + p.price);
             }
-        } catch (NumberFormatException e) {
-            TestListener.log("[WARNING] Could not parse price for total calculation: " + p.price);
         }
+        return Money.ofCents(totalCents);
     }
-    return total;
-}
-
 
     public static boolean validateCartTotal(String actualTotal) {
-        double expectedTotal = calculateExpectedTotal();
-        String expectedTotalStr = String.format("%.2f", expectedTotal);
-        try {
-            String actualTotalValue = actualTotal.replaceAll("[^0-9.]", "");
-            double actualTotalDouble = Double.parseDouble(actualTotalValue);
-            boolean isValid = Math.abs(expectedTotal - actualTotalDouble) < 0.01; 
-            TestListener.logCartValidation(isValid, "$" + expectedTotalStr, actualTotal);
-            return isValid;
-        } catch (Exception e) {
-            TestListener.logCartValidation(false, "$" + expectedTotalStr, actualTotal);
-            return false;
-        }
+        Money expectedTotal = calculateExpectedTotal();
+        long actualCents = Money.parseCents(actualTotal);
+        boolean isValid = actualCents != Money.NOT_A_PRICE && actualCents == expectedTotal.getCents();
+        TestListener.logCartValidation(isValid, expectedTotal.toString(), actualTotal);
+        return isValid;
     }
 
     public static void reset() {
-        addedProducts.clear();
-        cartItemCount = 0;
+        cartLedger.get().clear();
+    }
+
+    private static class CartLedger {
+        final List<ProductEntry> addedProducts = new ArrayList<>();
+        int cartItemCount = 0;
+
+        void clear() {
+            addedProducts.clear();
+            cartItemCount = 0;
+        }
     }
 
     private static class ProductEntry {
         String name;
         String price;
         String url;
+        long cents;
         ProductEntry(String n, String p, String u) {
             name = n; price = p; url = u;
+            cents = Money.parseCents(p);
         }
     }
 }
@@ -0,0 +1,350 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Per-run timings of every test and page-load step, appended to a local store that outlives
+// report.txt. At the end of a run each series is compared with its last N runs; a run is flagged
+// as slower when it sits well outside the baseline's spread (median and MAD, so one bad run in
+// the window does not hide the next) and is also meaningfully slower in relative terms.
+public class RunHistory {
+    private static final double MAD_TO_SIGMA = 1.4826;
+    // Spread floor, so a very steady baseline does not turn a few milliseconds into a regression.
+    private static final double MIN_SPREAD_FRACTION = 0.05;
+
+    private static final Map<String, Samples> currentRun = new ConcurrentSkipListMap<>();
+
+    public static void recordTest(String testName, long millis) {
+        record("test:" + testName, millis);
+    }
+
+    public static void recordStep(String stepName, double millis) {
+        record("step:" + stepName, millis);
+    }
+
+    private static void record(String series, double millis) {
+        if (ConfigReader.isHistoryEnabled()) {
+            currentRun.computeIfAbsent(series, k -> new Samples()).add(millis);
+        }
+    }
+
+    public static void reset() {
+        currentRun.clear();
+    }
+
+    // Compares this run against the stored history, then appends it.
+    public static void finishRun(int totalTests, int failedTests) {
+        if (!ConfigReader.isHistoryEnabled() || currentRun.isEmpty()) {
+            return;
+        }
+        int baselineRuns = ConfigReader.getHistoryBaselineRuns();
+        int minRuns = Math.min(ConfigReader.getHistoryMinRuns(), baselineRuns);
+        List<String> slowdowns = new ArrayList<>();
+        int compared = 0;
+        int runId;
+        try (Store store = Store.open(Paths.get(ConfigReader.getHistoryDir()))) {
+            runId = store.nextRunId();
+            for (Map.Entry<String, Samples> entry : currentRun.entrySet()) {
+                int seriesId = store.seriesId(entry.getKey());
+                Samples samples = entry.getValue();
+                double[] baseline = store.recentMeans(seriesId, baselineRuns);
+                if (baseline.length >= minRuns) {
+                    compared++;
+                    String slowdown = detectSlowdown(entry.getKey(), samples.mean(), baseline);
+                    if (slowdown != null) {
+                        slowdowns.add(slowdown);
+                    }
+                }
+                store.append(runId, seriesId, samples);
+            }
+            store.appendRun(runId, System.currentTimeMillis(), totalTests, failedTests);
+        } catch (IOException e) {
+            System.err.println("Failed to update run history: " + e.getMessage());
+            return;
+        }
+
+        TestListener.log("PERFORMANCE HISTORY:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Run #" + runId + " | Series recorded: " + currentRun.size() + " | Compared: " + compared +
+            " (baseline: last " + baselineRuns + " runs, at least " + minRuns + ")");
+        if (slowdowns.isEmpty()) {
+            TestListener.log("No significant slowdowns");
+        }
+        for (String slowdown : slowdowns) {
+            TestListener.log("SLOWER: " + slowdown);
+        }
+        TestListener.log("");
+    }
+
+    // Median duration of each test over its recent runs, keyed by test name; used to balance shards.
+    public static Map<String, Double> historicalTestMillis() {
+        Map<String, Double> estimates = new HashMap<>();
+        Path directory = Paths.get(ConfigReader.getHistoryDir());
+        if (!Files.exists(directory.resolve("samples.bin"))) {
+            return estimates;
+        }
+        try (Store store = Store.open(directory)) {
+            for (String name : store.seriesNames()) {
+                if (!name.startsWith("test:")) {
+                    continue;
+                }
+                double[] means = store.recentMeans(store.seriesId(name), ConfigReader.getHistoryBaselineRuns());
+                if (means.length > 0) {
+                    estimates.put(name.substring("test:".length()), median(means));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read run history: " + e.getMessage());
+        }
+        return estimates;
+    }
+
+    static String detectSlowdown(String series, double current, double[] baseline) {
+        double median = median(baseline);
+        double[] deviations = new double[baseline.length];
+        for (int i = 0; i < baseline.length; i++) {
+            deviations[i] = Math.abs(baseline[i] - median);
+        }
+        double spread = Math.max(MAD_TO_SIGMA * median(deviations), Math.max(median * MIN_SPREAD_FRACTION, 1.0));
+        double score = (current - median) / spread;
+        double increasePercent = median > 0 ? (current - median) / median * 100 : 0;
+        if (score < ConfigReader.getHistoryThreshold() || increasePercent < ConfigReader.getHistoryMinSlowdownPercent()) {
+            return null;
+        }
+        return series + " | " + String.format("%.0fms vs baseline median %.0fms (+%.0f%%, %.1f robust z, %d runs)",
+            current, median, increasePercent, score, baseline.length);
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    static class Samples {
+        private long count;
+        private double sum;
+        private double sumOfSquares;
+        private double max;
+
+        synchronized void add(double value) {
+            count++;
+            sum += value;
+            sumOfSquares += value * value;
+            max = Math.max(max, value);
+        }
+
+        synchronized double mean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        synchronized double stddev() {
+            if (count < 2) {
+                return 0;
+            }
+            double mean = sum / count;
+            return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+        }
+    }
+
+    // history/series.txt   series names, line number = series id (append-only)
+    // history/samples.bin  fixed 32-byte records, one per run and series (append-only): offset of the
+    //                      series' previous record, run id, series id, count, mean, stddev, max
+    // history/heads.bin    offset of each series' latest record, so the last N runs of a series are
+    //                      N reads however long the history; rebuilt from samples.bin if out of date
+    // history/runs.txt     run id, timestamp, tests, failed
+    static class Store implements Closeable {
+        private static final int RECORD_BYTES = 32;
+        private static final long NO_RECORD = -1;
+
+        private final Path directory;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final FileChannel samples;
+        private long[] heads;
+        private int runCount;
+
+        private Store(Path directory, FileChannel samples) {
+            this.directory = directory;
+            this.samples = samples;
+        }
+
+        static Store open(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            Store store = new Store(directory, FileChannel.open(directory.resolve("samples.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            try {
+                store.load();
+            } catch (IOException e) {
+                store.close();
+                throw e;
+            }
+            return store;
+        }
+
+        private void load() throws IOException {
+            Path seriesFile = directory.resolve("series.txt");
+            if (Files.exists(seriesFile)) {
+                for (String name : Files.readAllLines(seriesFile, StandardCharsets.UTF_8)) {
+                    ids.put(name, names.size());
+                    names.add(name);
+                }
+            }
+            Path runsFile = directory.resolve("runs.txt");
+            if (Files.exists(runsFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(runsFile, StandardCharsets.UTF_8)) {
+                    while (reader.readLine() != null) {
+                        runCount++;
+                    }
+                }
+            }
+            // A partially written record from an interrupted run is dropped.
+            long size = samples.size();
+            if (size % RECORD_BYTES != 0) {
+                samples.truncate(size - size % RECORD_BYTES);
+            }
+            if (!loadHeads()) {
+                rebuildHeads();
+            }
+        }
+
+        private boolean loadHeads() throws IOException {
+            Path headsFile = directory.resolve("heads.bin");
+            if (!Files.exists(headsFile)) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(headsFile));
+            if (buffer.remaining() < Long.BYTES || buffer.getLong() != samples.size()) {
+                return false;
+            }
+            heads = new long[Math.max(names.size(), buffer.remaining() / Long.BYTES)];
+            Arrays.fill(heads, NO_RECORD);
+            for (int i = 0; buffer.remaining() >= Long.BYTES; i++) {
+                heads[i] = buffer.getLong();
+            }
+            return true;
+        }
+
+        private void rebuildHeads() throws IOException {
+            heads = new long[names.size()];
+            Arrays.fill(heads, NO_RECORD);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            for (long position = 0; position < samples.size(); position += RECORD_BYTES) {
+                readRecord(record, position);
+                int seriesId = record.getInt(12);
+                if (seriesId >= 0 && seriesId < heads.length) {
+                    heads[seriesId] = position;
+                }
+            }
+        }
+
+        List<String> seriesNames() {
+            return new ArrayList<>(names);
+        }
+
+        int nextRunId() {
+            return runCount + 1;
+        }
+
+        int seriesId(String name) throws IOException {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            Files.write(directory.resolve("series.txt"), (name + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            int newId = names.size();
+            names.add(name);
+            ids.put(name, newId);
+            if (heads.length <= newId) {
+                int oldLength = heads.length;
+                heads = Arrays.copyOf(heads, Math.max(newId + 1, oldLength * 2));
+                Arrays.fill(heads, oldLength, heads.length, NO_RECORD);
+            }
+            return newId;
+        }
+
+        // Means of the series' most recent runs, newest first.
+        double[] recentMeans(int seriesId, int limit) throws IOException {
+            double[] means = new double[limit];
+            int found = 0;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            for (long position = heads[seriesId]; position != NO_RECORD && found < limit; position = record.getLong(0)) {
+                readRecord(record, position);
+                means[found++] = record.getFloat(20);
+            }
+            return Arrays.copyOf(means, found);
+        }
+
+        void append(int runId, int seriesId, Samples values) throws IOException {
+            long position = samples.size();
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            record.putLong(heads[seriesId]);
+            record.putInt(runId);
+            record.putInt(seriesId);
+            record.putInt((int) Math.min(values.count, Integer.MAX_VALUE));
+            record.putFloat((float) values.mean());
+            record.putFloat((float) values.stddev());
+            record.putFloat((float) values.max);
+            record.flip();
+            while (record.hasRemaining()) {
+                samples.write(record, position + record.position());
+            }
+            heads[seriesId] = position;
+        }
+
+        void appendRun(int runId, long timestamp, int totalTests, int failedTests) throws IOException {
+            Files.write(directory.resolve("runs.txt"),
+                (runId + "," + timestamp + "," + totalTests + "," + failedTests + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            runCount = runId;
+        }
+
+        private void readRecord(ByteBuffer record, long position) throws IOException {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (samples.read(record, position + record.position()) < 0) {
+                    throw new IOException("Truncated history record at " + position);
+                }
+            }
+        }
+
+        // heads.bin is only an index: it is replaced whole, stamped with the samples.bin size it matches.
+        @Override
+        public void close() throws IOException {
+            try {
+                if (heads == null) {
+                    return;
+                }
+                samples.force(false);
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * (heads.length + 1));
+                buffer.putLong(samples.size());
+                for (long head : heads) {
+                    buffer.putLong(head);
+                }
+                Path temporary = directory.resolve("heads.bin.tmp");
+                Files.write(temporary, buffer.array());
+                Files.move(temporary, directory.resolve("heads.bin"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                samples.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RunHistoryTest {
+    private final Map<String, String> previous = new HashMap<>();
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("history-test");
+        setProperty("history.threshold", "3");
+        setProperty("history.minSlowdownPercent", "10");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        for (Map.Entry<String, String> property : previous.entrySet()) {
+            if (property.getValue() == null) {
+                System.clearProperty(property.getKey());
+            } else {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+        }
+        previous.clear();
+    }
+
+    @Test
+    public void slowdownIsMeasuredInMadSigmas() {
+        // 800..1200: median 1000, MAD 100, so one robust sigma is about 148ms.
+        double[] noisy = new double[20];
+        for (int i = 0; i < noisy.length; i++) {
+            noisy[i] = 1000 + (i % 5 - 2) * 100;
+        }
+        Assert.assertNotNull(RunHistory.detectSlowdown("test:noisy", 1500, noisy), "3.4 sigmas slower");
+        Assert.assertNull(RunHistory.detectSlowdown("test:noisy", 1400, noisy), "40% slower but only 2.7 sigmas");
+        Assert.assertNull(RunHistory.detectSlowdown("test:noisy", 500, noisy), "faster is never flagged");
+    }
+
+    @Test
+    public void oneOutlierInTheBaselineDoesNotHideTheNextSlowdown() {
+        double[] baseline = new double[20];
+        Arrays.fill(baseline, 1000);
+        baseline[3] = 5000;
+        String slowdown = RunHistory.detectSlowdown("test:outlier", 1200, baseline);
+        Assert.assertNotNull(slowdown);
+        Assert.assertTrue(slowdown.startsWith("test:outlier | 1200ms vs baseline median 1000ms (+20%"), slowdown);
+    }
+
+    @Test
+    public void steadyBaselineUsesTheSpreadFloor() {
+        // No spread at all: the floor is 5% of the median, 50ms.
+        double[] steady = new double[10];
+        Arrays.fill(steady, 1000);
+        Assert.assertNull(RunHistory.detectSlowdown("step:steady", 1120, steady), "12% slower is 2.4 floor sigmas");
+        Assert.assertNotNull(RunHistory.detectSlowdown("step:steady", 1160, steady), "16% slower is 3.2 floor sigmas");
+
+        // Below 20ms the floor is 1ms, so a 3ms jitter on a 10ms step is not 30 sigmas.
+        double[] fast = new double[10];
+        Arrays.fill(fast, 10);
+        Assert.assertNull(RunHistory.detectSlowdown("step:fast", 12, fast));
+        Assert.assertNotNull(RunHistory.detectSlowdown("step:fast", 14, fast));
+    }
+
+    @Test
+    public void smallRelativeIncreaseIsNotFlagged() {
+        setProperty("history.threshold", "1");
+        double[] steady = new double[10];
+        Arrays.fill(steady, 1000);
+        Assert.assertNull(RunHistory.detectSlowdown("step:steady", 1060, steady), "1.2 sigmas but only 6% slower");
+        Assert.assertNotNull(RunHistory.detectSlowdown("step:steady", 1110, steady));
+    }
+
+    @Test
+    public void storeFollowsEachSeriesChainNewestFirst() throws IOException {
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            int first = store.seriesId("test:first");
+            int second = store.seriesId("test:second");
+            for (int run = 1; run <= 4; run++) {
+                store.append(run, first, samples(100 * run));
+                if (run % 2 == 0) {
+                    store.append(run, second, samples(run));
+                }
+                store.appendRun(run, run, 2, 0);
+            }
+            Assert.assertEquals(store.recentMeans(first, 10), new double[] {400, 300, 200, 100});
+            Assert.assertEquals(store.recentMeans(first, 2), new double[] {400, 300});
+            Assert.assertEquals(store.recentMeans(second, 10), new double[] {4, 2});
+            Assert.assertEquals(store.nextRunId(), 5);
+        }
+        Assert.assertTrue(Files.exists(directory.resolve("heads.bin")));
+
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            Assert.assertEquals(store.seriesNames(), List.of("test:first", "test:second"));
+            Assert.assertEquals(store.recentMeans(store.seriesId("test:first"), 10), new double[] {400, 300, 200, 100});
+            Assert.assertEquals(store.nextRunId(), 5);
+        }
+    }
+
+    @Test
+    public void headsAreRebuiltWhenTheyNoLongerMatchTheSamples() throws IOException {
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            int series = store.seriesId("test:only");
+            store.append(1, series, samples(10));
+            store.appendRun(1, 1, 1, 0);
+        }
+        Path heads = directory.resolve("heads.bin");
+        Path staleHeads = directory.resolve("heads.stale");
+        Files.copy(heads, staleHeads);
+
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            int series = store.seriesId("test:only");
+            store.append(2, series, samples(20));
+            store.appendRun(2, 2, 1, 0);
+        }
+        // A run that appended its record but died before rewriting heads.bin, in the middle of the
+        // next record.
+        Files.move(staleHeads, heads, StandardCopyOption.REPLACE_EXISTING);
+        Files.write(directory.resolve("samples.bin"), new byte[13], StandardOpenOption.APPEND);
+
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            Assert.assertEquals(Files.size(directory.resolve("samples.bin")) % 32, 0, "partial record dropped");
+            Assert.assertEquals(store.recentMeans(store.seriesId("test:only"), 10), new double[] {20, 10});
+        }
+
+        // Without heads.bin at all the chain is found again too.
+        Files.delete(heads);
+        try (RunHistory.Store store = RunHistory.Store.open(directory)) {
+            Assert.assertEquals(store.recentMeans(store.seriesId("test:only"), 10), new double[] {20, 10});
+        }
+    }
+
+    private static RunHistory.Samples samples(double... values) {
+        RunHistory.Samples samples = new RunHistory.Samples();
+        for (double value : values) {
+            samples.add(value);
+        }
+        return samples;
+    }
+
+    private void setProperty(String key, String value) {
+        previous.putIfAbsent(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+}
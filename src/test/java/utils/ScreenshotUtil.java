@@ -1,51 +1,127 @@
 package utils;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Screenshots are grabbed as raw PNG bytes on the calling thread (the browser state cannot wait)
+// and hashed and written on a single background thread. Files are named <test>_<content hash>, so
+// an identical image from the same test is stored once; past the retention cap the least recently
+// used of those files are pruned. Anything else in the directory is never touched.
 public class ScreenshotUtil {
-    private static final String SCREENSHOT_DIR = "screenshots/";
-    
-    static {
-        createScreenshotDirectory();
+    private static final int HASH_PREFIX_LENGTH = 16;
+    private static final Pattern STORE_FILE = Pattern.compile(".+_[0-9a-f]{" + HASH_PREFIX_LENGTH + "}\\.png");
+    private static final Pattern UNSAFE_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9_.-]");
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "screenshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static CompletableFuture<String> captureScreenshot(WebDriver driver, String testName) {
+        byte[] png;
+        try {
+            png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        } catch (Exception e) {
+            System.err.println("Failed to capture screenshot: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> store(png, testName), writer);
+    }
+
+    public static CompletableFuture<String> captureFailureScreenshot(WebDriver driver, String testMethodName) {
+        return captureScreenshot(driver, testMethodName + "_FAILURE");
     }
-    
-    private static void createScreenshotDirectory() {
-        File directory = new File(SCREENSHOT_DIR);
-        if (!directory.exists()) {
-            directory.mkdirs();
+
+    // Blocks until every screenshot queued so far is on disk; the writer runs tasks in order.
+    public static void awaitPendingWrites() {
+        try {
+            CompletableFuture.runAsync(() -> { }, writer).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Timed out waiting for screenshot writes: " + e.getMessage());
         }
     }
-    
-    public static String captureScreenshot(WebDriver driver, String testName) {
+
+    private static String store(byte[] png, String testName) {
         try {
-            TakesScreenshot takesScreenshot = (TakesScreenshot) driver;
-            File sourceFile = takesScreenshot.getScreenshotAs(OutputType.FILE);
-            
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-            String fileName = testName + "_" + timestamp + ".png";
-            String filePath = SCREENSHOT_DIR + fileName;
-            
-            File destFile = new File(filePath);
-            FileUtils.copyFile(sourceFile, destFile);
-            
-            System.out.println("Screenshot captured: " + filePath);
-            return filePath;
-            
+            Path directory = Paths.get(ConfigReader.getScreenshotDir());
+            Files.createDirectories(directory);
+            Path file = directory.resolve(fileName(testName, png));
+            if (Files.exists(file)) {
+                // Same image as an earlier capture: keep the one copy and mark it recently used.
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                System.out.println("Screenshot captured: " + file + " (duplicate of stored image)");
+            } else {
+                Files.write(file, png);
+                System.out.println("Screenshot captured: " + file);
+                prune(directory);
+            }
+            return file.toString();
         } catch (IOException e) {
-            System.err.println("Failed to capture screenshot: " + e.getMessage());
+            System.err.println("Failed to save screenshot: " + e.getMessage());
             return null;
         }
     }
-    
-    public static String captureFailureScreenshot(WebDriver driver, String testMethodName) {
-        return captureScreenshot(driver, testMethodName + "_FAILURE");
+
+    private static void prune(Path directory) throws IOException {
+        int maxFiles = ConfigReader.getScreenshotMaxFiles();
+        List<Path> screenshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            screenshots = files.filter(ScreenshotUtil::isStoreFile).collect(Collectors.toList());
+        }
+        if (screenshots.size() <= maxFiles) {
+            return;
+        }
+        screenshots.sort(Comparator.comparing(ScreenshotUtil::lastModified));
+        for (Path oldest : screenshots.subList(0, screenshots.size() - maxFiles)) {
+            Files.deleteIfExists(oldest);
+        }
+    }
+
+    static String fileName(String testName, byte[] png) {
+        return UNSAFE_NAME_CHARACTERS.matcher(testName).replaceAll("_") + "_" + hash(png) + ".png";
+    }
+
+    static boolean isStoreFile(Path path) {
+        return Files.isRegularFile(path) && STORE_FILE.matcher(path.getFileName().toString()).matches();
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(HASH_PREFIX_LENGTH);
+            for (int i = 0; i < HASH_PREFIX_LENGTH / 2; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a test whose dependsOnMethods only build up state (a filled cart) that StateSeeder can put
+// in place over HTTP instead. With seed.productUrls set the dependency is dropped, so the test runs,
+// and is scheduled, on its own and is not skipped when the test before it fails.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Seedable {
+}
@@ -0,0 +1,368 @@
+package utils;
+
+import org.testng.xml.Parser;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Splits the suite into units (each dependsOnMethods chain stays together), hands them to worker
+// JVMs over a socket and merges what comes back into one report.txt. Workers pull the next unit
+// when they are free and units go out longest first by their median duration in the run history,
+// so the slow chains start early and short ones fill the gaps. A worker that disconnects mid-unit
+// has its unit handed to another. Each worker also gets its own slice of the CSV data rows.
+//
+//   mvn -Pshard verify -Dshard.workers=4
+//   java -cp <test classpath> -Dshard.workers=2 -Dshard.remoteWorkers=2 -Dshard.port=7070 utils.ShardCoordinator
+public class ShardCoordinator {
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+
+    private final List<ShardProtocol.Unit> units;
+    private final PriorityBlockingQueue<ShardProtocol.Unit> pending;
+    private final Map<String, String> forwardedProperties;
+    private final int expectedWorkers;
+    private final int remoteWorkers;
+    private final AtomicInteger joinedWorkers = new AtomicInteger();
+    private final AtomicInteger connectedWorkers = new AtomicInteger();
+    private final Queue<Completed> completed = new ConcurrentLinkedQueue<>();
+    private final Map<String, WorkerStats> workerStats = new LinkedHashMap<>();
+    // Latest statistics files per worker; each copy holds everything that worker has recorded so far.
+    private final Map<String, Map<String, byte[]>> workerStateFiles = new ConcurrentHashMap<>();
+
+    ShardCoordinator(List<ShardProtocol.Unit> units, Map<String, String> forwardedProperties, int localWorkers,
+                     int remoteWorkers) {
+        this.units = units;
+        this.pending = new PriorityBlockingQueue<>(Math.max(units.size(), 1),
+            Comparator.comparingDouble((ShardProtocol.Unit unit) -> unit.estimatedMillis).reversed()
+                .thenComparingInt(unit -> unit.id));
+        this.pending.addAll(units);
+        this.forwardedProperties = forwardedProperties;
+        this.expectedWorkers = localWorkers + remoteWorkers;
+        this.remoteWorkers = remoteWorkers;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<ShardProtocol.Unit> units = planUnits(ConfigReader.getShardSuite(), RunHistory.historicalTestMillis());
+        int localWorkers = ConfigReader.getShardWorkers();
+        int remoteWorkers = ConfigReader.getShardRemoteWorkers();
+        ShardCoordinator coordinator = new ShardCoordinator(units, forwardedProperties(), localWorkers, remoteWorkers);
+        boolean passed = coordinator.run(localWorkers);
+        System.exit(passed ? 0 : 1);
+    }
+
+    // One unit per connected group of methods under dependsOnMethods, per class of every enabled <test>.
+    static List<ShardProtocol.Unit> planUnits(String suiteFile, Map<String, Double> historicalMillis) throws IOException {
+        List<ShardProtocol.Unit> units = new ArrayList<>();
+        for (XmlSuite suite : new Parser(suiteFile).parseToList()) {
+            for (XmlTest test : suite.getTests()) {
+                for (XmlClass xmlClass : test.getXmlClasses()) {
+                    for (List<String> chain : TestScheduler.dependencyChains(xmlClass)) {
+                        units.add(new ShardProtocol.Unit(units.size() + 1, xmlClass.getName(), chain,
+                            new LinkedHashMap<>(test.getAllParameters()), suite.getListeners(),
+                            TestScheduler.estimate(chain, historicalMillis)));
+                    }
+                }
+            }
+        }
+        return units;
+    }
+
+    // -D settings this JVM was started with go to every worker, local or remote.
+    private static Map<String, String> forwardedProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            int equals = argument.indexOf('=');
+            if (argument.startsWith("-D") && equals > 2 && !argument.startsWith("-Dshard.")) {
+                properties.put(argument.substring(2, equals), argument.substring(equals + 1));
+            }
+        }
+        // Every worker has to generate from the same seed for the data slices to stay disjoint.
+        if ("synthetic".equals(ConfigReader.getTestDataSource()) && ConfigReader.getTestDataSeed() == null) {
+            properties.put("testdata.seed", String.valueOf(System.nanoTime()));
+        }
+        return properties;
+    }
+
+    boolean run(int localWorkers) throws IOException, InterruptedException {
+        TestListener.initializeReport();
+        long started = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        List<Thread> handlers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(ConfigReader.getShardPort())) {
+            server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            TestListener.log("=".repeat(80));
+            TestListener.log("SHARDED EXECUTION | Units: " + units.size() + " | Local workers: " + localWorkers +
+                " | Expected workers: " + expectedWorkers + " | Coordinator: " +
+                InetAddress.getLocalHost().getHostName() + ":" + server.getLocalPort());
+            for (ShardProtocol.Unit unit : pending.stream()
+                    .sorted(pending.comparator()).toArray(ShardProtocol.Unit[]::new)) {
+                TestListener.log("   " + unit.describe() + " | Estimated: " + Math.round(unit.estimatedMillis) + "ms");
+            }
+            TestListener.log("=".repeat(80));
+
+            for (int i = 0; i < localWorkers; i++) {
+                processes.add(startLocalWorker(server.getLocalPort(), i));
+            }
+            while (completed.size() < units.size()) {
+                try {
+                    Socket socket = server.accept();
+                    connectedWorkers.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(socket), "shard-handler-" + handlers.size());
+                    handler.setDaemon(true);
+                    handler.start();
+                    handlers.add(handler);
+                } catch (SocketTimeoutException e) {
+                    if (completed.size() < units.size() && allWorkersGone(processes)) {
+                        TestListener.log("All workers have exited with " + (units.size() - completed.size()) +
+                            " unit(s) not run");
+                        break;
+                    }
+                }
+            }
+        }
+        for (Thread handler : handlers) {
+            handler.join(ACCEPT_TIMEOUT_MILLIS * 10L);
+        }
+        for (Process process : processes) {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroy();
+            }
+        }
+        mergeStateFiles();
+        boolean passed = logSummary((System.nanoTime() - started) / 1_000_000);
+        TestListener.closeReport();
+        return passed;
+    }
+
+    // Remote workers may still be on their way until as many workers as expected have joined.
+    private boolean allWorkersGone(List<Process> processes) {
+        return connectedWorkers.get() == 0 && processes.stream().noneMatch(Process::isAlive) &&
+            (remoteWorkers == 0 || joinedWorkers.get() >= expectedWorkers);
+    }
+
+    private Process startLocalWorker(int port, int index) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (Map.Entry<String, String> property : forwardedProperties.entrySet()) {
+            command.add("-D" + property.getKey() + "=" + property.getValue());
+        }
+        command.add("-Dshard.coordinator=localhost:" + port);
+        command.add("-Dshard.dir=" + ConfigReader.getShardDir());
+        command.add("-cp");
+        command.add(workerClasspath());
+        command.add(ShardWorker.class.getName());
+        Path log = Paths.get(ConfigReader.getShardDir(), "local-" + (index + 1) + ".log");
+        Files.createDirectories(log.getParent());
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    // Under surefire (useSystemClassLoader=false) the test classes come from an isolated class loader
+    // and java.class.path only holds the booter, so the loader's own URLs are passed on as well.
+    private static String workerClasspath() {
+        List<String> entries = new ArrayList<>();
+        for (ClassLoader loader = ShardCoordinator.class.getClassLoader(); loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    try {
+                        entries.add(Paths.get(url.toURI()).toString());
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        // Not a local file; the worker could not load from it anyway.
+                    }
+                }
+            }
+        }
+        entries.add(System.getProperty("java.class.path"));
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private void mergeStateFiles() {
+        for (String setting : ShardProtocol.STATE_FILES) {
+            List<byte[]> copies = new ArrayList<>();
+            for (Map<String, byte[]> files : workerStateFiles.values()) {
+                if (files.containsKey(setting)) {
+                    copies.add(files.get(setting));
+                }
+            }
+            if (copies.isEmpty()) {
+                continue;
+            }
+            try {
+                if (ShardProtocol.LOCATOR_STATS.equals(setting)) {
+                    LocatorRegistry.mergeWorkerCopies(copies);
+                } else {
+                    DomFingerprint.mergeWorkerCopies(copies);
+                }
+            } catch (IOException e) {
+                TestListener.log("Failed to merge " + setting + " from the workers: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String name = "?";
+        ShardProtocol.Unit current = null;
+        try (Socket connection = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            if (!ShardProtocol.HELLO.equals(in.readUTF())) {
+                return;
+            }
+            int index = joinedWorkers.getAndIncrement();
+            name = "shard-" + (index + 1);
+            TestListener.log("Worker " + in.readUTF() + " joined as " + name + " from " + connection.getInetAddress().getHostAddress());
+            out.writeUTF(ShardProtocol.WELCOME);
+            out.writeInt(index % expectedWorkers);
+            out.writeInt(expectedWorkers);
+            out.writeUTF(name);
+            ShardProtocol.writeMap(out, forwardedProperties);
+            out.flush();
+
+            while (true) {
+                String command = in.readUTF();
+                if (ShardProtocol.BYE.equals(command)) {
+                    return;
+                }
+                if (ShardProtocol.RESULT.equals(command)) {
+                    in.readInt();
+                    ShardProtocol.UnitResult result = ShardProtocol.UnitResult.read(in);
+                    completed.add(new Completed(current, name, result));
+                    workerStateFiles.put(name, result.stateFiles);
+                    stats(name).record(result.millis);
+                    TestListener.log("Unit " + current.describe() + " finished on " + name + " in " + result.millis +
+                        "ms | Passed: " + result.count("PASS") + " | Failed: " + result.count("FAIL") +
+                        " | Skipped: " + result.count("SKIP"));
+                    current = null;
+                    continue;
+                }
+                current = pending.poll();
+                if (current == null) {
+                    out.writeUTF(ShardProtocol.NO_MORE);
+                } else {
+                    out.writeUTF(ShardProtocol.RUN);
+                    current.write(out);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (current != null) {
+                TestListener.log("Worker " + name + " lost during " + current.describe() + "; unit requeued");
+                pending.add(current);
+            }
+        } finally {
+            connectedWorkers.decrementAndGet();
+        }
+    }
+
+    private synchronized WorkerStats stats(String name) {
+        return workerStats.computeIfAbsent(name, k -> new WorkerStats());
+    }
+
+    private boolean logSummary(long wallMillis) throws IOException {
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        long unitMillis = 0;
+        Path screenshotDir = Paths.get(ConfigReader.getScreenshotDir());
+        for (Completed unit : completed) {
+            String report = new String(unit.result.report, StandardCharsets.UTF_8)
+                .replace(Paths.get(ConfigReader.getShardDir(), unit.worker, "screenshots").toString(), screenshotDir.toString());
+            TestListener.log("");
+            TestListener.log("#".repeat(80));
+            TestListener.log("UNIT " + unit.unit.describe() + " | Worker: " + unit.worker + " | " + unit.result.millis + "ms");
+            TestListener.log("#".repeat(80));
+            TestListener.appendRaw(report);
+            for (Map.Entry<String, byte[]> screenshot : unit.result.screenshots.entrySet()) {
+                Files.createDirectories(screenshotDir);
+                Files.write(screenshotDir.resolve(screenshot.getKey()), screenshot.getValue());
+            }
+            for (ShardProtocol.TestOutcome test : unit.result.tests) {
+                if ("PASS".equals(test.status)) {
+                    passed++;
+                    RunHistory.recordTest(test.name, test.millis);
+                } else if ("FAIL".equals(test.status)) {
+                    failed++;
+                } else {
+                    skipped++;
+                }
+            }
+            unitMillis += unit.result.millis;
+        }
+        int notRun = units.size() - completed.size();
+
+        TestListener.log("=".repeat(80));
+        TestListener.log("SHARDED EXECUTION SUMMARY");
+        TestListener.log("=".repeat(80));
+        TestListener.log("Total Tests: " + (passed + failed + skipped));
+        TestListener.log("Passed: " + passed);
+        TestListener.log("Failed: " + failed);
+        TestListener.log("Skipped: " + skipped);
+        TestListener.log("Units run: " + completed.size() + "/" + units.size() + (notRun > 0 ? " | NOT RUN: " + notRun : ""));
+        TestListener.log("Wall clock: " + wallMillis + "ms | Sum of unit times: " + unitMillis + "ms | Speed-up: " +
+            String.format("%.2fx", unitMillis / (double) Math.max(wallMillis, 1)));
+        TestListener.log("");
+        TestListener.log("WORKERS:");
+        TestListener.log("-".repeat(40));
+        synchronized (this) {
+            for (Map.Entry<String, WorkerStats> entry : workerStats.entrySet()) {
+                WorkerStats stats = entry.getValue();
+                TestListener.log(entry.getKey() + " | Units: " + stats.units + " | Busy: " + stats.busyMillis + "ms (" +
+                    String.format("%.0f%%", 100.0 * stats.busyMillis / Math.max(wallMillis, 1)) + " of wall clock)");
+            }
+        }
+        TestListener.log("");
+        RunHistory.finishRun(passed + failed + skipped, failed);
+        TestListener.log("=".repeat(80));
+        return failed == 0 && notRun == 0;
+    }
+
+    private static class Completed {
+        final ShardProtocol.Unit unit;
+        final String worker;
+        final ShardProtocol.UnitResult result;
+
+        Completed(ShardProtocol.Unit unit, String worker, ShardProtocol.UnitResult result) {
+            this.unit = unit;
+            this.worker = worker;
+            this.result = result;
+        }
+    }
+
+    private static class WorkerStats {
+        int units;
+        long busyMillis;
+
+        synchronized void record(long millis) {
+            units++;
+            busyMillis += millis;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class ShardCoordinatorTest {
+    private static final String PROBE = ShardProbe.LOCATOR_KEY;
+
+    private final Map<String, String> previous = new HashMap<>();
+    private Path directory;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("shard-test");
+        Files.write(directory.resolve("locator-stats.properties"),
+            List.of(PROBE + "|#probe=5,0,0"));
+        setProperty("shard.dir", directory.resolve("shards").toString());
+        setProperty("report.file", directory.resolve("report.txt").toString());
+        setProperty("events.file", directory.resolve("events.jsonl").toString());
+        setProperty("screenshot.dir", directory.resolve("screenshots").toString());
+        setProperty("locator.statsFile", directory.resolve("locator-stats.properties").toString());
+        setProperty("dom.fingerprint.file", directory.resolve("dom-fingerprints.properties").toString());
+        setProperty("history.enabled", "false");
+        setProperty("shard.port", "0");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        for (Map.Entry<String, String> property : previous.entrySet()) {
+            if (property.getValue() == null) {
+                System.clearProperty(property.getKey());
+            } else {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void runsSuiteThroughTwoLocalWorkers() throws Exception {
+        Path suite = directory.resolve("suite.xml");
+        Files.write(suite, List.of(
+            "<!DOCTYPE suite SYSTEM \"http://testng.org/testng-1.0.dtd\">",
+            "<suite name=\"Shard_Test\">",
+            "  <test name=\"Trivial\">",
+            "    <classes><class name=\"" + ShardProbe.class.getName() + "\"/></classes>",
+            "  </test>",
+            "</suite>"));
+        List<ShardProtocol.Unit> units = ShardCoordinator.planUnits(suite.toString(), new HashMap<>());
+        Assert.assertEquals(units.size(), 2, "first+second form one unit, independent another");
+
+        Map<String, String> forwarded = new LinkedHashMap<>();
+        for (String key : List.of("locator.statsFile", "dom.fingerprint.file", "events.file")) {
+            forwarded.put(key, System.getProperty(key));
+        }
+        ShardCoordinator coordinator = new ShardCoordinator(units, forwarded, 2, 0);
+        Assert.assertTrue(coordinator.run(2), "sharded run reported failures or units not run");
+
+        String report = new String(Files.readAllBytes(directory.resolve("report.txt")), StandardCharsets.UTF_8);
+        Assert.assertTrue(report.contains("Passed: 3"), report);
+        Assert.assertTrue(report.contains("Units run: 2/2"), report);
+        Assert.assertTrue(report.contains("joined as shard-2"), report);
+
+        // Five hits from before the run, carried over as 4 after decay, plus one per test whichever
+        // worker ran it.
+        Properties stats = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve("locator-stats.properties"))) {
+            stats.load(in);
+        }
+        Assert.assertEquals(stats.getProperty(PROBE + "|#probe"), "7,0,0,0");
+    }
+
+    private void setProperty(String key, String value) {
+        previous.put(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+}
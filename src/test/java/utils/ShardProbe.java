@@ -0,0 +1,29 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+// Run by ShardCoordinatorTest inside the worker JVMs; every test counts one hit in the worker's
+// locator statistics. Kept out of the *Test naming so surefire never picks it up on its own.
+public class ShardProbe {
+    static final String LOCATOR_KEY = "ShardProbe.probe";
+
+    @Test
+    public void first() {
+        recordProbeHit();
+    }
+
+    @Test(dependsOnMethods = "first")
+    public void second() {
+        recordProbeHit();
+    }
+
+    @Test
+    public void independent() {
+        recordProbeHit();
+    }
+
+    private static void recordProbeHit() {
+        LocatorRegistry.recordHit(LOCATOR_KEY, "#probe", 0, 0);
+        LocatorRegistry.save();
+    }
+}
@@ -0,0 +1,195 @@
+package utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Wire format between ShardCoordinator and ShardWorker: a command name followed by its fields,
+// written with DataOutputStream so it needs nothing beyond a plain socket.
+//
+//   worker -> HELLO name              coordinator -> WELCOME shardIndex shardCount shardName properties
+//   worker -> NEXT                    coordinator -> RUN unit | NO_MORE
+//   worker -> RESULT unit result      (after every RUN)
+//   worker -> BYE
+final class ShardProtocol {
+    static final String HELLO = "HELLO";
+    static final String WELCOME = "WELCOME";
+    static final String NEXT = "NEXT";
+    static final String RUN = "RUN";
+    static final String NO_MORE = "NO_MORE";
+    static final String RESULT = "RESULT";
+    static final String BYE = "BYE";
+
+    // Files a worker keeps its own copy of and sends back with every result, named by their setting.
+    static final String LOCATOR_STATS = "locator.statsFile";
+    static final String DOM_FINGERPRINTS = "dom.fingerprint.file";
+    static final List<String> STATE_FILES = List.of(LOCATOR_STATS, DOM_FINGERPRINTS);
+
+    private ShardProtocol() {
+    }
+
+    // A dependsOnMethods chain, or a single independent method, of one test class.
+    static class Unit {
+        final int id;
+        final String className;
+        final List<String> methods;
+        final Map<String, String> parameters;
+        final List<String> listeners;
+        final double estimatedMillis;
+
+        Unit(int id, String className, List<String> methods, Map<String, String> parameters, List<String> listeners,
+             double estimatedMillis) {
+            this.id = id;
+            this.className = className;
+            this.methods = methods;
+            this.parameters = parameters;
+            this.listeners = listeners;
+            this.estimatedMillis = estimatedMillis;
+        }
+
+        String describe() {
+            return "#" + id + " " + className.substring(className.lastIndexOf('.') + 1) + "." + String.join("+", methods);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(id);
+            out.writeUTF(className);
+            writeList(out, methods);
+            writeMap(out, parameters);
+            writeList(out, listeners);
+            out.writeDouble(estimatedMillis);
+        }
+
+        static Unit read(DataInputStream in) throws IOException {
+            return new Unit(in.readInt(), in.readUTF(), readList(in), readMap(in), readList(in), in.readDouble());
+        }
+    }
+
+    static class TestOutcome {
+        final String name;
+        final String status;
+        final long millis;
+
+        TestOutcome(String name, String status, long millis) {
+            this.name = name;
+            this.status = status;
+            this.millis = millis;
+        }
+    }
+
+    static class UnitResult {
+        final long millis;
+        final List<TestOutcome> tests;
+        final byte[] report;
+        final Map<String, byte[]> screenshots;
+        final Map<String, byte[]> stateFiles;
+
+        UnitResult(long millis, List<TestOutcome> tests, byte[] report, Map<String, byte[]> screenshots,
+                   Map<String, byte[]> stateFiles) {
+            this.millis = millis;
+            this.tests = tests;
+            this.report = report;
+            this.screenshots = screenshots;
+            this.stateFiles = stateFiles;
+        }
+
+        int count(String status) {
+            int count = 0;
+            for (TestOutcome test : tests) {
+                if (test.status.equals(status)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(millis);
+            out.writeInt(tests.size());
+            for (TestOutcome test : tests) {
+                out.writeUTF(test.name);
+                out.writeUTF(test.status);
+                out.writeLong(test.millis);
+            }
+            writeBytes(out, report);
+            writeFiles(out, screenshots);
+            writeFiles(out, stateFiles);
+        }
+
+        static UnitResult read(DataInputStream in) throws IOException {
+            long millis = in.readLong();
+            int testCount = in.readInt();
+            List<TestOutcome> tests = new ArrayList<>(testCount);
+            for (int i = 0; i < testCount; i++) {
+                tests.add(new TestOutcome(in.readUTF(), in.readUTF(), in.readLong()));
+            }
+            byte[] report = readBytes(in);
+            return new UnitResult(millis, tests, report, readFiles(in), readFiles(in));
+        }
+    }
+
+    static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    static void writeMap(DataOutputStream out, Map<String, String> values) throws IOException {
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            values.put(in.readUTF(), in.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeFiles(DataOutputStream out, Map<String, byte[]> files) throws IOException {
+        out.writeInt(files.size());
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            out.writeUTF(file.getKey());
+            writeBytes(out, file.getValue());
+        }
+    }
+
+    private static Map<String, byte[]> readFiles(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            files.put(in.readUTF(), readBytes(in));
+        }
+        return files;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,188 @@
+package utils;
+
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// One shard of a sharded run: connects to a ShardCoordinator, takes units of work until none are
+// left and runs each through TestNG in this JVM, sending back its results, report and screenshots.
+// Started by the coordinator for local workers, or by hand on another host:
+//   java -cp <test classpath> -Dshard.coordinator=<host>:<port> utils.ShardWorker
+public class ShardWorker {
+    public static void main(String[] args) throws IOException {
+        String coordinator = ConfigReader.getShardCoordinator();
+        if (coordinator == null) {
+            System.err.println("Set -Dshard.coordinator=<host>:<port>");
+            System.exit(2);
+        }
+        int separator = coordinator.lastIndexOf(':');
+        String name = "worker-" + ManagementFactory.getRuntimeMXBean().getName().replace('@', '-');
+        try (Socket socket = new Socket(coordinator.substring(0, separator), Integer.parseInt(coordinator.substring(separator + 1)));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeUTF(ShardProtocol.HELLO);
+            out.writeUTF(name);
+            out.flush();
+            expect(in, ShardProtocol.WELCOME);
+            int shardIndex = in.readInt();
+            int shardCount = in.readInt();
+            name = in.readUTF();
+            configure(name, shardIndex, shardCount, ShardProtocol.readMap(in));
+
+            while (true) {
+                out.writeUTF(ShardProtocol.NEXT);
+                out.flush();
+                if (!ShardProtocol.RUN.equals(in.readUTF())) {
+                    break;
+                }
+                ShardProtocol.Unit unit = ShardProtocol.Unit.read(in);
+                ShardProtocol.UnitResult result = run(name, unit);
+                out.writeUTF(ShardProtocol.RESULT);
+                out.writeInt(unit.id);
+                result.write(out);
+                out.flush();
+            }
+            out.writeUTF(ShardProtocol.BYE);
+            out.flush();
+        }
+        System.exit(0);
+    }
+
+    // The coordinator's settings first, then what keeps this worker's files and data rows apart.
+    // Visual baselines stay shared; only the diff images go to the worker's directory.
+    private static void configure(String name, int shardIndex, int shardCount, Map<String, String> properties)
+            throws IOException {
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            System.setProperty(property.getKey(), property.getValue());
+        }
+        Path workDir = Paths.get(ConfigReader.getShardDir(), name);
+        Files.createDirectories(workDir);
+        System.setProperty("testdata.shard", shardIndex + "/" + shardCount);
+        System.setProperty("screenshot.dir", workDir.resolve("screenshots").toString());
+        System.setProperty("har.dir", workDir.resolve("har").toString());
+        System.setProperty("visual.diffDir", workDir.resolve("visual-diffs").toString());
+        // Statistics files are read from a copy of the shared one and saved to it; the coordinator
+        // merges the copies into the shared files at the end.
+        System.setProperty(ShardProtocol.LOCATOR_STATS, workerCopy(ConfigReader.getLocatorStatsFile(), workDir));
+        System.setProperty(ShardProtocol.DOM_FINGERPRINTS, workerCopy(ConfigReader.getDomFingerprintFile(), workDir));
+        // Only the coordinator writes run history, from the merged results.
+        System.setProperty("history.enabled", "false");
+        System.out.println("Shard " + name + " joined as " + shardIndex + "/" + shardCount);
+    }
+
+    private static String workerCopy(String sharedFile, Path workDir) throws IOException {
+        Path shared = Paths.get(sharedFile);
+        Path copy = workDir.resolve(shared.getFileName());
+        if (Files.isRegularFile(shared)) {
+            Files.copy(shared, copy, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(copy);
+        }
+        return copy.toString();
+    }
+
+    private static ShardProtocol.UnitResult run(String name, ShardProtocol.Unit unit) throws IOException {
+        Path workDir = Paths.get(ConfigReader.getShardDir(), name);
+        Path report = workDir.resolve("unit-" + unit.id + ".txt");
+        Files.createDirectories(workDir);
+        System.setProperty("report.file", report.toString());
+        System.setProperty("events.file", workDir.resolve("unit-" + unit.id + ".jsonl").toString());
+
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Shard " + name + " unit " + unit.id);
+        suite.setParameters(unit.parameters);
+        suite.setListeners(unit.listeners);
+        XmlTest test = new XmlTest(suite);
+        test.setName(unit.describe());
+        test.setPreserveOrder(true);
+        XmlClass xmlClass = new XmlClass(unit.className);
+        List<XmlInclude> includes = new ArrayList<>();
+        for (String method : unit.methods) {
+            includes.add(new XmlInclude(method));
+        }
+        xmlClass.setIncludedMethods(includes);
+        test.setXmlClasses(List.of(xmlClass));
+
+        TestListenerAdapter outcomes = new TestListenerAdapter();
+        TestNG testng = new TestNG();
+        testng.setUseDefaultListeners(false);
+        testng.setXmlSuites(List.of(suite));
+        testng.addListener(outcomes);
+        long started = System.nanoTime();
+        System.out.println("Shard " + name + " running " + unit.describe());
+        testng.run();
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        List<ShardProtocol.TestOutcome> tests = new ArrayList<>();
+        addOutcomes(tests, outcomes.getPassedTests(), "PASS");
+        addOutcomes(tests, outcomes.getFailedTests(), "FAIL");
+        addOutcomes(tests, outcomes.getSkippedTests(), "SKIP");
+        byte[] reportBytes = Files.exists(report) ? Files.readAllBytes(report) : new byte[0];
+        return new ShardProtocol.UnitResult(millis, tests, reportBytes, takeScreenshots(), stateFiles());
+    }
+
+    private static Map<String, byte[]> stateFiles() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (String setting : ShardProtocol.STATE_FILES) {
+            Path copy = Paths.get(System.getProperty(setting));
+            if (Files.isRegularFile(copy)) {
+                files.put(setting, Files.readAllBytes(copy));
+            }
+        }
+        return files;
+    }
+
+    private static void addOutcomes(List<ShardProtocol.TestOutcome> tests, List<ITestResult> results, String status) {
+        for (ITestResult result : results) {
+            tests.add(new ShardProtocol.TestOutcome(result.getMethod().getMethodName(), status,
+                result.getEndMillis() - result.getStartMillis()));
+        }
+    }
+
+    // Sent files are removed, so each unit only ships the screenshots it produced.
+    private static Map<String, byte[]> takeScreenshots() throws IOException {
+        Map<String, byte[]> screenshots = new LinkedHashMap<>();
+        Path directory = Paths.get(ConfigReader.getScreenshotDir());
+        if (!Files.isDirectory(directory)) {
+            return screenshots;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.toString().endsWith(".png")).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            screenshots.put(file.getFileName().toString(), Files.readAllBytes(file));
+            Files.delete(file);
+        }
+        return screenshots;
+    }
+
+    private static void expect(DataInputStream in, String command) throws IOException {
+        String received = in.readUTF();
+        if (!command.equals(received)) {
+            throw new IOException("Expected " + command + " from coordinator but got " + received);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package utils;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Puts a storefront session into a known state (cart contents) over plain
+// HTTP by posting the storefront's own forms, then hands the session cookies to WebDriver.
+public class StateSeeder {
+    private static final Pattern FORM_PATTERN = Pattern.compile("<form\\b([^>]*)>(.*?)</form>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INPUT_PATTERN = Pattern.compile("<input\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SELECT_PATTERN = Pattern.compile("<select\\b([^>]*)>(.*?)</select>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern OPTION_PATTERN = Pattern.compile("<option\\b([^>]*)>(.*?)</option>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // name, name="value", name='value' or name=value
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile(
+        "([^\\s\"'<>/=]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'<>`=]+)))?");
+    static final Pattern TITLE_PATTERN = Pattern.compile("<title>(.*?)</title>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    static final Pattern PRICE_PATTERN = Pattern.compile(
+        "class=\"[^\"]*productfilneprice[^\"]*\"[^>]*>\\s*([^<]+)<", Pattern.CASE_INSENSITIVE);
+
+    private final URI baseUri;
+    private final CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+    private final HttpClient client;
+
+    public StateSeeder(String baseUrl) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.client = HttpClient.newBuilder()
+            .cookieHandler(cookieManager)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .build();
+    }
+
+    public StateSeeder() {
+        this(ConfigReader.getUrl());
+    }
+
+    // True when the test's dependencies are replaced by seeding, see Seedable.
+    public static boolean replacesDependencies(Method method) {
+        return method.isAnnotationPresent(Seedable.class) && !ConfigReader.getSeedProductUrls().isEmpty();
+    }
+
+    // Adopts the browser's session so seeded items land in the cart the browser already has.
+    public void useSessionOf(WebDriver driver) {
+        for (Cookie cookie : driver.manage().getCookies()) {
+            HttpCookie httpCookie = new HttpCookie(cookie.getName(), cookie.getValue());
+            httpCookie.setPath(cookie.getPath() == null ? "/" : cookie.getPath());
+            httpCookie.setVersion(0);
+            cookieManager.getCookieStore().add(baseUri, httpCookie);
+        }
+    }
+
+    public SeededProduct addProductToCart(String productUrl) throws IOException {
+        URI productUri = baseUri.resolve(productUrl);
+        String html = get(productUri);
+        HtmlForm form = HtmlForm.find(html, "product");
+        if (form == null) {
+            throw new IOException("No add-to-cart form found at " + productUri);
+        }
+        form.fields.putIfAbsent("quantity", "1");
+        HttpResponse<String> response = post(productUri.resolve(form.action), form.fields);
+        if (response.statusCode() >= 400) {
+            throw new IOException("Add to cart failed with HTTP " + response.statusCode() + " for " + productUri);
+        }
+
+        String name = firstGroup(TITLE_PATTERN, html, "Unknown Product").replace("Automation Test Store", "").trim();
+        String price = firstGroup(PRICE_PATTERN, html, "$0.00").trim();
+        TestListener.log("Seeded cart over HTTP: " + name + " | " + price);
+        return new SeededProduct(name, price, productUri.toString());
+    }
+
+    // Copies the seeded session cookies into the browser; the browser has to be on the storefront's
+    // origin first, since WebDriver can only set cookies for the current domain.
+    public void applyTo(WebDriver driver) {
+        String currentUrl = driver.getCurrentUrl();
+        if (currentUrl == null || !currentUrl.startsWith(baseUri.getScheme() + "://" + baseUri.getAuthority())) {
+            driver.get(baseUri.toString());
+        }
+        for (HttpCookie httpCookie : cookieManager.getCookieStore().get(baseUri)) {
+            driver.manage().addCookie(new Cookie.Builder(httpCookie.getName(), httpCookie.getValue())
+                .path(httpCookie.getPath() == null ? "/" : httpCookie.getPath())
+                .isHttpOnly(httpCookie.isHttpOnly())
+                .build());
+        }
+        driver.navigate().refresh();
+    }
+
+    private String get(URI uri) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .GET()
+            .build();
+        return send(request).body();
+    }
+
+    private HttpResponse<String> post(URI uri, Map<String, String> fields) throws IOException {
+        StringJoiner body = new StringJoiner("&");
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.add(URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "=" +
+                URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8));
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        return send(request);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.uri(), e);
+        }
+    }
+
+    static String firstGroup(Pattern pattern, String html, String defaultValue) {
+        Matcher matcher = pattern.matcher(html);
+        return matcher.find() ? HtmlForm.decode(matcher.group(1)) : defaultValue;
+    }
+
+    public static class SeededProduct {
+        public final String name;
+        public final String price;
+        public final String url;
+
+        public SeededProduct(String name, String price, String url) {
+            this.name = name;
+            this.price = price;
+            this.url = url;
+        }
+    }
+
+    // Just enough HTML form scraping to replay a storefront form: hidden fields, defaults and selects.
+    // Package-private so the load engine can post the same forms.
+    static class HtmlForm {
+        final String action;
+        final String body;
+        final Map<String, String> fields = new LinkedHashMap<>();
+
+        HtmlForm(String action, String body) {
+            this.action = action;
+            this.body = body;
+        }
+
+        static HtmlForm find(String html, String formId) {
+            Matcher forms = FORM_PATTERN.matcher(html);
+            while (forms.find()) {
+                Map<String, String> attributes = attributes(forms.group(1));
+                if (formId.equals(attributes.get("id"))) {
+                    return parse(attributes.getOrDefault("action", ""), forms.group(2));
+                }
+            }
+            return null;
+        }
+
+        private static HtmlForm parse(String action, String body) {
+            HtmlForm form = new HtmlForm(action, body);
+            Matcher inputs = INPUT_PATTERN.matcher(body);
+            while (inputs.find()) {
+                Map<String, String> input = attributes(inputs.group(1));
+                String name = input.get("name");
+                String type = input.get("type");
+                boolean checkable = "checkbox".equalsIgnoreCase(type) || "radio".equalsIgnoreCase(type);
+                if (name == null || (checkable && !input.containsKey("checked"))) {
+                    continue;
+                }
+                form.fields.put(name, input.getOrDefault("value", ""));
+            }
+
+            Matcher selects = SELECT_PATTERN.matcher(body);
+            while (selects.find()) {
+                String name = attributes(selects.group(1)).get("name");
+                if (name != null) {
+                    String selected = selectedOption(selects.group(2));
+                    form.fields.put(name, selected == null ? "" : selected);
+                }
+            }
+            return form;
+        }
+
+        static String selectedOption(String optionsHtml) {
+            String first = null;
+            Matcher options = OPTION_PATTERN.matcher(optionsHtml);
+            while (options.find()) {
+                Map<String, String> option = attributes(options.group(1));
+                String value = option.get("value");
+                if (first == null) {
+                    first = value;
+                }
+                if (option.containsKey("selected")) {
+                    return value;
+                }
+            }
+            return first;
+        }
+
+        static String attribute(String tag, String name) {
+            return attributes(tag).get(name.toLowerCase(Locale.ROOT));
+        }
+
+        // Every attribute of one tag, keyed by lower-case name; the first occurrence wins, as in a
+        // browser. Accepts a whole tag ("<a href=...>") or just its attribute text.
+        static Map<String, String> attributes(String tag) {
+            int start = 0;
+            if (tag.startsWith("<")) {
+                start = 1;
+                while (start < tag.length() && !Character.isWhitespace(tag.charAt(start)) && tag.charAt(start) != '>') {
+                    start++;
+                }
+            }
+            Map<String, String> attributes = new HashMap<>();
+            Matcher matcher = ATTRIBUTE_PATTERN.matcher(tag).region(start, tag.length());
+            while (matcher.find()) {
+                String value = matcher.group(2) != null ? matcher.group(2)
+                    : matcher.group(3) != null ? matcher.group(3)
+                    : matcher.group(4) != null ? matcher.group(4) : "";
+                attributes.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT), decode(value));
+            }
+            return attributes;
+        }
+
+        static String decode(String text) {
+            return text.replace("&amp;", "&").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&lt;", "<").replace("&gt;", ">").replace("&nbsp;", " ");
+        }
+    }
+}
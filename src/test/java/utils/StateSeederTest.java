@@ -0,0 +1,142 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class StateSeederTest {
+    private static final String PRODUCT_PAGE =
+        "<html><head><title>Skinsheen Bronzer Stick</title></head><body>" +
+        "<div class=\"productfilneprice\">$29.50</div>" +
+        "<form id=\"product\" action=\"index.php?rt=checkout/cart\" method=\"post\">" +
+        "<input type=\"hidden\" data-value=\"wrong\" name=\"product_id\" value=\"50\">" +
+        "<input data-id=\"qty\" type=text name=quantity value=2>" +
+        "<input type=\"radio\" name=\"option[1]\" value=\"7\" class=\"unchecked\" data-checked=\"true\">" +
+        "<input type=\"radio\" name=\"option[1]\" value=\"8\" checked>" +
+        "<input type=\"checkbox\" name=\"option[3]\" value=\"9\" class=\"unchecked\">" +
+        "<select name=\"option[2]\"><option value=\"3\" class=\"unselected\">Small</option>" +
+        "<option value=\"4\" selected>Large</option></select>" +
+        "</form></body></html>";
+
+    private final Queue<Map<String, String>> posts = new ConcurrentLinkedQueue<>();
+    private StubStorefront storefront;
+    private String baseUrl;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        storefront = StubStorefront.start(this::handle);
+        baseUrl = storefront.url("/");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        storefront.close();
+    }
+
+    @Test
+    public void attributeIgnoresDataAttributesWithTheSameSuffix() {
+        String tag = "<input data-value=\"a\" data-id='b' id=\"c\" value=\"d\">";
+        Assert.assertEquals(StateSeeder.HtmlForm.attribute(tag, "value"), "d");
+        Assert.assertEquals(StateSeeder.HtmlForm.attribute(tag, "id"), "c");
+        Assert.assertNull(StateSeeder.HtmlForm.attribute(tag, "name"));
+    }
+
+    @Test
+    public void attributesReadUnquotedAndBareValues() {
+        Map<String, String> attributes = StateSeeder.HtmlForm.attributes(
+            "<input TYPE=checkbox name='opt' value=1 class=\"unchecked\" checked/>");
+        Assert.assertEquals(attributes.get("type"), "checkbox");
+        Assert.assertEquals(attributes.get("name"), "opt");
+        Assert.assertEquals(attributes.get("value"), "1");
+        Assert.assertEquals(attributes.get("class"), "unchecked");
+        Assert.assertEquals(attributes.get("checked"), "");
+        Assert.assertFalse(attributes.containsKey("input"), "the tag name is not an attribute");
+
+        Assert.assertFalse(StateSeeder.HtmlForm.attributes("<option class=\"unselected\" data-selected=1>")
+            .containsKey("selected"));
+    }
+
+    @Test
+    public void addProductToCartPostsTheProductFormInOneSession() throws IOException {
+        StateSeeder seeder = new StateSeeder(baseUrl);
+        StateSeeder.SeededProduct product = seeder.addProductToCart("index.php?rt=product/product&product_id=50");
+
+        Assert.assertEquals(product.name, "Skinsheen Bronzer Stick");
+        Assert.assertEquals(product.price, "$29.50");
+        Assert.assertEquals(posts.size(), 1);
+        Map<String, String> posted = posts.peek();
+        Assert.assertEquals(posted.get("product_id"), "50");
+        Assert.assertEquals(posted.get("quantity"), "2");
+        Assert.assertEquals(posted.get("option[1]"), "8", "only the checked radio is submitted");
+        Assert.assertFalse(posted.containsKey("option[3]"), "class=\"unchecked\" does not check a box");
+        Assert.assertEquals(posted.get("option[2]"), "4");
+        Assert.assertEquals(posted.get("session"), "seeded", "the cart post carries the session cookie");
+    }
+
+    @Test
+    public void seedingDetachesTheCartWorkflowFromProductSelection() {
+        XmlClass xmlClass = new XmlClass("tests.ECommerceTest");
+        String previous = System.getProperty("seed.productUrls");
+        try {
+            System.clearProperty("seed.productUrls");
+            Assert.assertTrue(chainOf(xmlClass, "testCartAndCheckoutWorkflow").contains("testProductSelectionAndCartAddition"));
+
+            System.setProperty("seed.productUrls", "index.php?rt=product/product&product_id=50");
+            Assert.assertEquals(chainOf(xmlClass, "testCartAndCheckoutWorkflow"), List.of("testCartAndCheckoutWorkflow"));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("seed.productUrls");
+            } else {
+                System.setProperty("seed.productUrls", previous);
+            }
+        }
+    }
+
+    private static List<String> chainOf(XmlClass xmlClass, String method) {
+        for (List<String> chain : TestScheduler.dependencyChains(xmlClass)) {
+            if (chain.contains(method)) {
+                return chain;
+            }
+        }
+        throw new AssertionError(method + " is in no chain");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        if ("POST".equals(exchange.getRequestMethod()) && "rt=checkout/cart".equals(query)) {
+            Map<String, String> fields = parseForm(new String(exchange.getRequestBody().readAllBytes(),
+                StandardCharsets.UTF_8));
+            List<String> cookies = exchange.getRequestHeaders().getOrDefault("Cookie", List.of());
+            fields.put("session", cookies.contains("PHPSESSID=seeded") ? "seeded" : "missing");
+            posts.add(fields);
+            StubStorefront.respond(exchange, 200, "text/html", "<html><title>Shopping Cart</title></html>");
+        } else if (query != null && query.startsWith("rt=product/product")) {
+            exchange.getResponseHeaders().add("Set-Cookie", "PHPSESSID=seeded; Path=/");
+            StubStorefront.respond(exchange, 200, "text/html", PRODUCT_PAGE);
+        } else {
+            StubStorefront.respond(exchange, 404);
+        }
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> fields = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            fields.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,466 @@
+package utils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for the storefront. In "record" mode it proxies to the live site and stores every
+// response it sees; in "replay" mode it serves those responses back from memory, keeping its own
+// per-session cart so the ECommerceTest flows behave the same without network access. Response
+// bodies are written as they are recorded; the index of them is written once, when the server stops.
+public class StorefrontReplayServer {
+    private static final String ORIGIN_PLACEHOLDER = "{{REPLAY_ORIGIN}}";
+    private static final String SESSION_COOKIE = "replay_session";
+    private static final String INDEX_FILE = "index.properties";
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+        "host", "connection", "content-length", "expect", "upgrade", "accept-encoding", "keep-alive",
+        "transfer-encoding", "te", "trailer", "proxy-connection");
+    private static final Pattern CART_COUNT_PATTERN =
+        Pattern.compile("(<span class=\"label label-orange[^\"]*\">)\\s*\\d+\\s*(</span>)");
+    private static final Pattern PRODUCT_NAME_PATTERN =
+        Pattern.compile("class=\"productname\"[^>]*>\\s*(?:<span[^>]*>)?\\s*([^<]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRODUCT_PRICE_PATTERN =
+        Pattern.compile("class=\"productfilneprice\"[^>]*>\\s*([^<]+)", Pattern.CASE_INSENSITIVE);
+
+    private static StorefrontReplayServer instance;
+
+    private final String mode;
+    private final URI upstream;
+    private final Path storeDir;
+    private final long latencyMs;
+    private final HttpServer server;
+    private final HttpClient upstreamClient;
+    private final Properties index = new Properties();
+    private final Map<String, byte[]> bodyCache = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, CartLine>> carts = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+    private boolean indexDirty;
+
+    StorefrontReplayServer(String mode, String upstreamUrl, Path storeDir, int port, long latencyMs) throws IOException {
+        this.mode = mode;
+        this.upstream = URI.create(upstreamUrl.endsWith("/") ? upstreamUrl : upstreamUrl + "/");
+        this.storeDir = storeDir;
+        this.latencyMs = latencyMs;
+        this.upstreamClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(ConfigReader.getTimeout()))
+            .build();
+
+        Files.createDirectories(storeDir);
+        Path indexPath = storeDir.resolve(INDEX_FILE);
+        if (Files.exists(indexPath)) {
+            try (InputStream in = new FileInputStream(indexPath.toFile())) {
+                index.load(in);
+            }
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.start();
+    }
+
+    // Started lazily by ConfigReader.getUrl() when replay.mode is "record" or "replay".
+    public static synchronized StorefrontReplayServer ensureStarted() {
+        if (instance == null) {
+            try {
+                instance = new StorefrontReplayServer(
+                    ConfigReader.getReplayMode(),
+                    ConfigReader.getUpstreamUrl(),
+                    Paths.get(ConfigReader.getReplayDir()),
+                    ConfigReader.getReplayPort(),
+                    ConfigReader.getReplayLatencyMs());
+                Runtime.getRuntime().addShutdownHook(new Thread(instance::stop, "replay-server-shutdown"));
+                System.out.println("Storefront " + instance.mode + " server listening on " + instance.getBaseUrl());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to start storefront replay server: " + e.getMessage(), e);
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized StorefrontReplayServer getRunningInstance() {
+        return instance;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public synchronized void stop() {
+        server.stop(0);
+        if (!indexDirty) {
+            return;
+        }
+        try {
+            Path indexPath = storeDir.resolve(INDEX_FILE);
+            Path temp = Files.createTempFile(storeDir, INDEX_FILE, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                index.store(out, "Recorded storefront responses");
+            }
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            indexDirty = false;
+        } catch (IOException e) {
+            System.err.println("Failed to save the replay index: " + e.getMessage());
+        }
+    }
+
+    public void logSummary() {
+        TestListener.log("STOREFRONT " + mode.toUpperCase() + " SERVER:");
+        TestListener.log("-".repeat(40));
+        TestListener.log("Served from recording: " + hits.get() + " | Missing from recording: " + misses.get() +
+            " | Newly recorded: " + recorded.get());
+        TestListener.log("");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] requestBody = readAll(exchange.getRequestBody());
+            if ("record".equals(mode)) {
+                proxyAndRecord(exchange, requestBody);
+            } else {
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
+                replay(exchange, requestBody);
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Once the headers are out the status can no longer change; closing cuts the response short.
+            if (exchange.getResponseCode() == -1) {
+                byte[] body = ("Replay server error: " + e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(502, body.length);
+                exchange.getResponseBody().write(body);
+            } else {
+                TestListener.log("[REPLAY] Failed mid-response for " + exchange.getRequestURI() + ": " + e.getMessage());
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void proxyAndRecord(HttpExchange exchange, byte[] requestBody) throws IOException, InterruptedException {
+        URI target = upstream.resolve(exchange.getRequestURI().toString().substring(1));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+            .timeout(Duration.ofSeconds(60))
+            .method(exchange.getRequestMethod(), requestBody.length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), value.replace(localOrigin(), upstreamOrigin()));
+                }
+            }
+        }
+        HttpResponse<byte[]> response = upstreamClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        String contentType = response.headers().firstValue("Content-Type").orElse("application/octet-stream");
+        String location = response.headers().firstValue("Location").orElse(null);
+        byte[] body = response.body();
+        if (isText(contentType)) {
+            body = new String(body, StandardCharsets.UTF_8).replace(upstreamOrigin(), ORIGIN_PLACEHOLDER)
+                .replace("http://" + upstream.getAuthority(), ORIGIN_PLACEHOLDER)
+                .getBytes(StandardCharsets.UTF_8);
+        }
+        if (location != null) {
+            location = location.replace(upstreamOrigin(), ORIGIN_PLACEHOLDER);
+        }
+        store(requestKey(exchange, requestBody), baseKey(exchange), response.statusCode(), contentType, location, body);
+
+        Headers headers = exchange.getResponseHeaders();
+        for (String cookie : response.headers().allValues("Set-Cookie")) {
+            headers.add("Set-Cookie", cookie.replaceAll("(?i);\\s*domain=[^;]*", "").replaceAll("(?i);\\s*secure", ""));
+        }
+        send(exchange, response.statusCode(), contentType, location, body);
+    }
+
+    private void replay(HttpExchange exchange, byte[] requestBody) throws IOException {
+        String sessionId = sessionId(exchange);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String route = query.getOrDefault("rt", "");
+
+        if ("checkout/cart".equals(route)) {
+            Map<String, String> form = parseQuery(new String(requestBody, StandardCharsets.UTF_8));
+            if ("POST".equals(exchange.getRequestMethod()) && form.containsKey("product_id")) {
+                addToCart(sessionId, form.get("product_id"), form.getOrDefault("quantity", "1"));
+                send(exchange, 302, "text/html", localOrigin() + "/index.php?rt=checkout/cart", new byte[0]);
+            } else {
+                hits.incrementAndGet();
+                send(exchange, 200, "text/html; charset=utf-8", null, renderCart(sessionId).getBytes(StandardCharsets.UTF_8));
+            }
+            return;
+        }
+
+        // A POST whose exact body was never recorded (a fresh form token, say) falls back to the
+        // last one recorded for that URL, then to the page itself.
+        String key = requestKey(exchange, requestBody);
+        String target = baseKey(exchange);
+        for (String candidate : List.of(key, target, "GET " + target.substring(target.indexOf(' ') + 1))) {
+            if (index.getProperty(candidate + ".file") != null) {
+                key = candidate;
+                break;
+            }
+        }
+        String file = index.getProperty(key + ".file");
+        if (file == null) {
+            misses.incrementAndGet();
+            TestListener.log("[REPLAY] Not in recording: " + key);
+            send(exchange, 404, "text/plain", null, ("Not recorded: " + key).getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        hits.incrementAndGet();
+
+        String contentType = index.getProperty(key + ".type", "application/octet-stream");
+        String location = index.getProperty(key + ".location");
+        byte[] body = bodyCache.computeIfAbsent(file, this::readBody);
+        if (isText(contentType)) {
+            String text = new String(body, StandardCharsets.UTF_8).replace(ORIGIN_PLACEHOLDER, localOrigin());
+            if (contentType.contains("html")) {
+                text = CART_COUNT_PATTERN.matcher(text).replaceAll("$1" + cartCount(sessionId) + "$2");
+            }
+            body = text.getBytes(StandardCharsets.UTF_8);
+        }
+        if (location != null) {
+            location = location.replace(ORIGIN_PLACEHOLDER, localOrigin());
+        }
+        send(exchange, Integer.parseInt(index.getProperty(key + ".status", "200")), contentType, location, body);
+    }
+
+    private void addToCart(String sessionId, String productId, String quantity) {
+        Map<String, CartLine> cart = carts.computeIfAbsent(sessionId, k -> new LinkedHashMap<>());
+        synchronized (cart) {
+            CartLine line = cart.computeIfAbsent(productId, this::lookupProduct);
+            try {
+                line.quantity += Math.max(1, Integer.parseInt(quantity.trim()));
+            } catch (NumberFormatException e) {
+                line.quantity++;
+            }
+        }
+    }
+
+    // Name and price come from the recorded product page for that product_id.
+    private CartLine lookupProduct(String productId) {
+        for (String name : index.stringPropertyNames()) {
+            if (name.startsWith("GET ") && name.endsWith(".file") && name.contains("rt=product/product")
+                && name.contains("product_id=" + productId)) {
+                String html = new String(bodyCache.computeIfAbsent(index.getProperty(name), this::readBody), StandardCharsets.UTF_8);
+                Matcher productName = PRODUCT_NAME_PATTERN.matcher(html);
+                Matcher price = PRODUCT_PRICE_PATTERN.matcher(html);
+                return new CartLine(productId,
+                    productName.find() ? productName.group(1).trim() : "Product " + productId,
+                    price.find() ? price.group(1).trim() : "$0.00");
+            }
+        }
+        return new CartLine(productId, "Product " + productId, "$0.00");
+    }
+
+    private int cartCount(String sessionId) {
+        Map<String, CartLine> cart = carts.get(sessionId);
+        if (cart == null) {
+            return 0;
+        }
+        synchronized (cart) {
+            return cart.values().stream().mapToInt(line -> line.quantity).sum();
+        }
+    }
+
+    private String renderCart(String sessionId) {
+        Map<String, CartLine> cart = carts.getOrDefault(sessionId, new LinkedHashMap<>());
+        StringBuilder rows = new StringBuilder();
+        Money total = Money.ZERO;
+        synchronized (cart) {
+            for (CartLine line : cart.values()) {
+                Money lineTotal = line.unitPrice().times(line.quantity);
+                total = total.plus(lineTotal);
+                rows.append("<tr class=\"cart-item\"><td class=\"product-name\"><a href=\"index.php?rt=product/product&amp;product_id=")
+                    .append(line.productId).append("\">").append(line.name).append("</a></td><td class=\"unit-price\">")
+                    .append(line.price).append("</td><td class=\"quantity\">").append(line.quantity)
+                    .append("</td><td class=\"line-total\">").append(lineTotal).append("</td></tr>");
+            }
+        }
+        return "<!DOCTYPE html><html><head><title>Shopping Cart</title></head><body>" +
+            "<ul class=\"nav topcart\"><li><a href=\"index.php?rt=checkout/cart\" class=\"cart-link\">Cart " +
+            "<span class=\"label label-orange font14\">" + cartCount(sessionId) + "</span></a></li></ul>" +
+            "<div class=\"container\"><h1 class=\"heading1\">Shopping Cart</h1>" +
+            "<table class=\"table cart-table\">" + rows + "</table>" +
+            "<table class=\"cart-totals\"><tr><td>Total:</td><td class=\"grand-total\">" + total + "</td></tr></table>" +
+            "<a href=\"index.php?rt=account/login\" class=\"btn btn-orange checkout\" title=\"Checkout\">Checkout</a>" +
+            "</div></body></html>";
+    }
+
+    private String sessionId(HttpExchange exchange) {
+        String cookieHeader = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookieHeader != null) {
+            for (String cookie : cookieHeader.split(";")) {
+                String[] parts = cookie.trim().split("=", 2);
+                if (parts.length == 2 && SESSION_COOKIE.equals(parts[0])) {
+                    return parts[1];
+                }
+            }
+        }
+        String sessionId = UUID.randomUUID().toString();
+        exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sessionId + "; Path=/");
+        return sessionId;
+    }
+
+    // Request bodies are part of the key, so two form posts to one URL are recorded separately.
+    private String requestKey(HttpExchange exchange, byte[] requestBody) {
+        String key = baseKey(exchange);
+        return requestBody.length == 0 ? key : key + " body=" + sha1(requestBody);
+    }
+
+    // Query parameters are sorted so the same page requested with reordered parameters still matches.
+    private static String baseKey(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String path = exchange.getRequestURI().getRawPath();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return exchange.getRequestMethod() + " " + path;
+        }
+        String[] params = rawQuery.split("&");
+        Arrays.sort(params);
+        return exchange.getRequestMethod() + " " + path + "?" + String.join("&", params);
+    }
+
+    private synchronized void store(String key, String baseKey, int status, String contentType, String location,
+                                    byte[] body) throws IOException {
+        String file = sha1(key.getBytes(StandardCharsets.UTF_8));
+        Files.write(storeDir.resolve(file), body);
+        index(key, file, status, contentType, location);
+        if (!key.equals(baseKey)) {
+            index(baseKey, file, status, contentType, location);
+        }
+        indexDirty = true;
+        recorded.incrementAndGet();
+    }
+
+    private void index(String key, String file, int status, String contentType, String location) {
+        index.setProperty(key + ".file", file);
+        index.setProperty(key + ".status", String.valueOf(status));
+        index.setProperty(key + ".type", contentType);
+        if (location != null) {
+            index.setProperty(key + ".location", location);
+        } else {
+            index.remove(key + ".location");
+        }
+    }
+
+    private byte[] readBody(String file) {
+        try {
+            return Files.readAllBytes(storeDir.resolve(file));
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String location, byte[] body) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        if (location != null) {
+            headers.set("Location", location);
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private String localOrigin() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private String upstreamOrigin() {
+        return upstream.getScheme() + "://" + upstream.getAuthority();
+    }
+
+    private static boolean isText(String contentType) {
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new TreeMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            String[] parts = pair.split("=", 2);
+            params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return params;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.transferTo(out);
+        return out.toByteArray();
+    }
+
+    private static String sha1(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CartLine {
+        final String productId;
+        final String name;
+        final String price;
+        int quantity = 0;
+
+        CartLine(String productId, String name, String price) {
+            this.productId = productId;
+            this.name = name;
+            this.price = price;
+        }
+
+        Money unitPrice() {
+            long cents = Money.parseCents(price);
+            return cents == Money.NOT_A_PRICE ? Money.ZERO : Money.ofCents(cents);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+public class StorefrontReplayServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private StubStorefront upstream;
+
+    // Echoes the posted form, so each recorded response shows which request it belongs to.
+    @BeforeClass
+    public void startUpstream() throws IOException {
+        upstream = StubStorefront.start(exchange -> StubStorefront.respond(exchange, 200, "text/plain",
+            "echo:" + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopUpstream() {
+        upstream.close();
+    }
+
+    @Test
+    public void postsWithDifferentBodiesAreRecordedAndReplayedSeparately() throws Exception {
+        Path directory = Files.createTempDirectory("replay-test");
+        StorefrontReplayServer recorder = new StorefrontReplayServer("record", upstream.url("/"), directory, 0, 0);
+        Assert.assertEquals(post(recorder, "index.php?rt=account/login", "email=a"), "echo:email=a");
+        Assert.assertEquals(post(recorder, "index.php?rt=account/login", "email=b"), "echo:email=b");
+        Assert.assertFalse(Files.exists(directory.resolve("index.properties")), "index is written once, on stop");
+        recorder.stop();
+
+        Properties index = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve("index.properties"))) {
+            index.load(in);
+        }
+        long postKeys = index.stringPropertyNames().stream()
+            .filter(name -> name.startsWith("POST ") && name.endsWith(".file")).count();
+        Assert.assertEquals(postKeys, 3, "one key per body plus the latest under the bare URL");
+
+        StorefrontReplayServer replayer = new StorefrontReplayServer("replay", upstream.url("/"), directory, 0, 0);
+        try {
+            Assert.assertEquals(post(replayer, "index.php?rt=account/login", "email=a"), "echo:email=a");
+            Assert.assertEquals(post(replayer, "index.php?rt=account/login", "email=b"), "echo:email=b");
+            Assert.assertEquals(post(replayer, "index.php?rt=account/login", "email=c"), "echo:email=b",
+                "an unrecorded body falls back to the latest post to that URL");
+        } finally {
+            replayer.stop();
+        }
+    }
+
+    @Test
+    public void unreachableUpstreamAnswersBadGateway() throws Exception {
+        Path directory = Files.createTempDirectory("replay-test");
+        StorefrontReplayServer recorder = new StorefrontReplayServer("record", "http://127.0.0.1:1/", directory, 0, 0);
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(recorder.getBaseUrl() + "index.php"))
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(response.statusCode(), 502);
+        } finally {
+            recorder.stop();
+        }
+    }
+
+    private String post(StorefrontReplayServer server, String path, String form) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,110 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// A stand-in storefront on a free local port for the framework's own unit tests and benchmarks.
+// It serves either the caller's handler, or with journey() just the pages a virtual user walks
+// through: under /shop/ the full journey, under /empty/ a home page without category links.
+public final class StubStorefront implements AutoCloseable {
+    private static final int THREADS = 32;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String origin;
+
+    private StubStorefront(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "stub-storefront");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public static StubStorefront start(HttpHandler handler) throws IOException {
+        return new StubStorefront(handler);
+    }
+
+    public static StubStorefront journey() throws IOException {
+        return new StubStorefront(StubStorefront::serveJourney);
+    }
+
+    // "/shop/" becomes http://127.0.0.1:<port>/shop/
+    public String url(String path) {
+        return origin + path;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // A response without a body, e.g. a 404 or a redirect whose Location is already set.
+    public static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void serveJourney(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String route = query == null ? "" : query.replaceFirst("^rt=([^&]*).*$", "$1");
+        String base = exchange.getRequestURI().getPath().startsWith("/empty/") ? "/empty/" : "/shop/";
+        exchange.getRequestBody().readAllBytes();
+        String html;
+        switch (route) {
+            case "":
+                html = base.equals("/empty/") ? "<p>Closed for maintenance</p>"
+                    : "<a href=\"index.php?rt=product/category&amp;path=36\">Makeup</a>";
+                break;
+            case "product/category":
+                html = "<a href=\"index.php?rt=product/product&amp;product_id=50\">Bronzer</a>";
+                break;
+            case "product/product":
+                html = "<form id=\"product\" action=\"index.php?rt=checkout/cart\" method=\"post\">" +
+                    "<input type=\"hidden\" name=\"product_id\" value=\"50\"></form>";
+                break;
+            case "checkout/cart":
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().add("Set-Cookie", "cart=50; Path=/");
+                    exchange.getResponseHeaders().add("Location", base + "index.php?rt=checkout/cart");
+                    respond(exchange, 302);
+                    return;
+                }
+                String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+                html = cookie != null && cookie.contains("cart=50")
+                    ? "<a id=\"cart_checkout1\" class=\"btn\" href=\"index.php?rt=checkout/shipping\">Checkout</a>"
+                    : "<p>Your cart is empty</p>";
+                break;
+            case "checkout/shipping":
+                html = "<h1>Checkout</h1>";
+                break;
+            default:
+                respond(exchange, 404);
+                return;
+        }
+        respond(exchange, 200, "text/html; charset=utf-8", html);
+    }
+}
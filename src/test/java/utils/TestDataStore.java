@@ -0,0 +1,278 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Read-only CSV test data backed by a memory-mapped file. Row start offsets are indexed once per
+// file, after which any row is reached in O(1) without reading the rest of the file. Rows come
+// back as maps that only decode their fields when first read. Safe for concurrent readers: the
+// mapped buffers are only ever read with absolute gets.
+public class TestDataStore {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final Map<Path, TestDataStore> openStores = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private final long[] rowStarts;
+    private final int rowCount;
+    private final String[] headers;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final AtomicLong cursor = new AtomicLong();
+
+    private TestDataStore(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+        }
+
+        long[] starts = buildIndex();
+        if (starts.length == 0) {
+            throw new IOException("Test data file is empty: " + path);
+        }
+        headers = decodeRow(starts[0], end(starts, 0));
+        for (int i = 0; i < headers.length; i++) {
+            columnIndex.put(headers[i], i);
+        }
+        rowStarts = Arrays.copyOfRange(starts, 1, starts.length);
+        rowCount = rowStarts.length;
+        TestListener.log(LogLevel.DEBUG, "Indexed " + rowCount + " test data rows from " + path);
+    }
+
+    public static TestDataStore open(String file) throws IOException {
+        Path path = Paths.get(file).toAbsolutePath().normalize();
+        TestDataStore store = openStores.get(path);
+        if (store != null) {
+            return store;
+        }
+        synchronized (openStores) {
+            store = openStores.get(path);
+            if (store == null) {
+                store = new TestDataStore(path);
+                openStores.put(path, store);
+            }
+            return store;
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getHeaders() {
+        return Collections.unmodifiableList(Arrays.asList(headers));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Map<String, String> row(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + rowCount + " in " + path);
+        }
+        return new LazyRow(index);
+    }
+
+    public Map<String, String> randomRow() {
+        return row(ThreadLocalRandom.current().nextInt(rowCount));
+    }
+
+    // Hands out rows in file order across all threads, wrapping around at the end.
+    public Map<String, String> nextRow() {
+        return row((int) (cursor.getAndIncrement() % rowCount));
+    }
+
+    // The shard variants only use rows whose index is shardIndex modulo shardCount, so parallel
+    // JVMs never register the same user. A shard with no rows of its own falls back to all of them.
+    public Map<String, String> randomRow(int shardIndex, int shardCount) {
+        int shardRows = shardRows(shardIndex, shardCount);
+        if (shardRows == 0) {
+            return randomRow();
+        }
+        return row(shardIndex + ThreadLocalRandom.current().nextInt(shardRows) * shardCount);
+    }
+
+    public Map<String, String> nextRow(int shardIndex, int shardCount) {
+        int shardRows = shardRows(shardIndex, shardCount);
+        if (shardRows == 0) {
+            return nextRow();
+        }
+        return row(shardIndex + (int) (cursor.getAndIncrement() % shardRows) * shardCount);
+    }
+
+    private int shardRows(int shardIndex, int shardCount) {
+        return rowCount > shardIndex ? (rowCount - shardIndex + shardCount - 1) / shardCount : 0;
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    // One pass over the file recording where each record starts; newlines inside quotes do not count.
+    private long[] buildIndex() {
+        long[] starts = new long[1024];
+        int count = 0;
+        long position = 0;
+        if (size >= 3 && byteAt(0) == (byte) 0xEF && byteAt(1) == (byte) 0xBB && byteAt(2) == (byte) 0xBF) {
+            position = 3;
+        }
+        long rowStart = position;
+        boolean quoted = false;
+        boolean blank = true;
+        for (; position < size; position++) {
+            byte b = byteAt(position);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                if (!blank) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = rowStart;
+                }
+                rowStart = position + 1;
+                blank = true;
+                continue;
+            }
+            if (b != '\r' && b != ' ') {
+                blank = false;
+            }
+        }
+        if (!blank) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = rowStart;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    // Rows end at the next row's start, less the line break (and any blank lines) in between.
+    private long end(long[] starts, int index) {
+        long end = index + 1 < starts.length ? starts[index + 1] : size;
+        while (end > starts[index] && (byteAt(end - 1) == '\n' || byteAt(end - 1) == '\r' || byteAt(end - 1) == ' ')) {
+            end--;
+        }
+        return end;
+    }
+
+    private String[] decodeRow(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        String line = new String(bytes, StandardCharsets.UTF_8);
+
+        List<String> fields = new ArrayList<>(headers == null ? 16 : headers.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    // Fields are decoded on the first lookup; writes copy the row into a plain HashMap first,
+    // so callers can keep adjusting the returned data as they did with CSVUtils.
+    private class LazyRow extends AbstractMap<String, String> {
+        private final int index;
+        private String[] fields;
+        private Map<String, String> copy;
+
+        LazyRow(int index) {
+            this.index = index;
+        }
+
+        private String[] fields() {
+            if (fields == null) {
+                fields = decodeRow(rowStarts[index], end(rowStarts, index));
+            }
+            return fields;
+        }
+
+        private Map<String, String> copy() {
+            if (copy == null) {
+                copy = new HashMap<>();
+                String[] values = fields();
+                for (int i = 0; i < headers.length && i < values.length; i++) {
+                    copy.put(headers[i], values[i]);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public String get(Object key) {
+            if (copy != null) {
+                return copy.get(key);
+            }
+            Integer column = columnIndex.get(key);
+            if (column == null) {
+                return null;
+            }
+            String[] values = fields();
+            return column < values.length ? values[column] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return copy != null ? copy.containsKey(key) : get(key) != null;
+        }
+
+        @Override
+        public String put(String key, String value) {
+            return copy().put(key, value);
+        }
+
+        @Override
+        public String remove(Object key) {
+            return copy().remove(key);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return copy().entrySet();
+        }
+    }
+}
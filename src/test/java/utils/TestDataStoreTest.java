@@ -0,0 +1,120 @@
+package utils;
+
+import com.opencsv.CSVReader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TestDataStoreTest {
+    private static final String EDGE_CASES =
+        "firstName,lastName,email,company\r\n" +
+        "Ann,Lee,ann@example.com,\"Acme, Inc\"\r\n" +
+        "\r\n" +
+        "Bob,\"O\"\"Brien\",bob@example.com,\"Line one\nline two\"\n" +
+        "  Cy , Ng ,cy@example.com,   \n" +
+        "\n" +
+        "\"Di\",\"\",di@example.com,\"He said \"\"hi\"\", then left\"\r\n" +
+        "Ed,Ko,ed@example.com,Last row without a line break";
+
+    @Test
+    public void rowsMatchWhatCsvUtilsUsedToRead() throws Exception {
+        TestDataStore store = TestDataStore.open(write(EDGE_CASES).toString());
+        List<Map<String, String>> expected = readLikeCsvUtils(EDGE_CASES);
+
+        Assert.assertEquals(store.getHeaders(), List.of("firstName", "lastName", "email", "company"));
+        Assert.assertEquals(store.getRowCount(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(new HashMap<>(store.row(i)), expected.get(i), "row " + i);
+        }
+        Assert.assertEquals(store.row(0).get("company"), "Acme, Inc");
+        Assert.assertEquals(store.row(1).get("lastName"), "O\"Brien");
+        Assert.assertEquals(store.row(1).get("company"), "Line one\nline two");
+        Assert.assertEquals(store.row(3).get("company"), "He said \"hi\", then left");
+    }
+
+    @Test
+    public void byteOrderMarkIsNotPartOfTheFirstHeader() throws IOException {
+        TestDataStore store = TestDataStore.open(write("\uFEFF" + EDGE_CASES).toString());
+        Assert.assertEquals(store.getHeaders().get(0), "firstName");
+        Assert.assertEquals(store.row(0).get("firstName"), "Ann");
+        Assert.assertEquals(store.getRowCount(), 5);
+    }
+
+    @Test
+    public void rowOutsideTheFileIsRejected() throws IOException {
+        TestDataStore store = TestDataStore.open(write(EDGE_CASES).toString());
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> store.row(-1));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> store.row(store.getRowCount()));
+    }
+
+    @Test
+    public void writesGoToACopyOfTheRow() throws IOException {
+        TestDataStore store = TestDataStore.open(write(EDGE_CASES).toString());
+        Map<String, String> row = store.row(0);
+        row.put("lastName", "");
+        Assert.assertEquals(row.get("lastName"), "");
+        Assert.assertEquals(store.row(0).get("lastName"), "Lee");
+    }
+
+    @Test
+    public void shardSlicesAreDisjointAndCoverEveryRow() throws IOException {
+        StringBuilder csv = new StringBuilder("email\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append("user").append(i).append("@example.com\n");
+        }
+        TestDataStore store = TestDataStore.open(write(csv.toString()).toString());
+        int shards = 3;
+        Set<String> seen = new HashSet<>();
+        for (int shard = 0; shard < shards; shard++) {
+            Set<String> slice = new HashSet<>();
+            int shardRows = (store.getRowCount() - shard + shards - 1) / shards;
+            for (int i = 0; i < shardRows * 2; i++) {
+                slice.add(store.nextRow(shard, shards).get("email"));
+            }
+            Assert.assertEquals(slice.size(), shardRows, "shard " + shard + " walks only its own rows");
+            for (String email : slice) {
+                Assert.assertTrue(seen.add(email), email + " handed to two shards");
+            }
+        }
+        Assert.assertEquals(seen.size(), store.getRowCount());
+    }
+
+    // What CSVUtils did before the store: opencsv readAll, trimmed, header row first, blank lines skipped.
+    private static List<Map<String, String>> readLikeCsvUtils(String csv) throws Exception {
+        List<String[]> records;
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            records = reader.readAll();
+        }
+        String[] headers = records.get(0);
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (String[] record : records.subList(1, records.size())) {
+            if (record.length == 1 && record[0].trim().isEmpty()) {
+                continue;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < headers.length && i < record.length; i++) {
+                row.put(headers[i].trim(), record[i].trim());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Path write(String content) throws IOException {
+        Path file = Files.createTempFile("testdata", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -1,32 +1,137 @@
 package utils;
 
+import org.testng.IAlterSuiteListener;
+import org.testng.IAnnotationTransformer;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestContext;
 import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.xml.XmlSuite;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
-public class TestListener implements ITestListener, ISuiteListener {
-    private static final String REPORT_FILE = "report.txt";
-    private static PrintWriter reportWriter;
-    private static List<String> failureDetails = new ArrayList<>();
-    private static List<String> skippedElements = new ArrayList<>();
-    private static double totalProductCost = 0.0;
-    private static int totalTests = 0;
-    private static int passedTests = 0;
-    private static int failedTests = 0;
-    private static int skippedTests = 0;
+public class TestListener implements ITestListener, ISuiteListener, IAlterSuiteListener, IInvokedMethodListener,
+    IAnnotationTransformer {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final LogLevel minimumLevel = ConfigReader.getLogLevel();
+    private static final AsyncLogWriter logWriter = new AsyncLogWriter(ConfigReader.getLogQueueCapacity());
+    private static volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(-1, "");
+    private static final Queue<FailureDetail> failureDetails = new ConcurrentLinkedQueue<>();
+    private static final Queue<String> skippedElements = new ConcurrentLinkedQueue<>();
+
+    // Striped counters, so parallel workers do not contend on one field; summed up in onFinish.
+    private static final LongAdder testsRun = new LongAdder();
+    private static final LongAdder testsPassed = new LongAdder();
+    private static final LongAdder testsFailed = new LongAdder();
+    private static final LongAdder testsSkipped = new LongAdder();
+    private static final LongAdder productCents = new LongAdder();
+
+    // Lines logged while a test is running are held back and written as one block when it ends,
+    // so output from tests running in parallel never interleaves in report.txt.
+    private static final ThreadLocal<StringBuilder> testBuffer = new ThreadLocal<>();
+
+    // Only applies when the listener is registered in the suite XML, as testng.xml does; TestNG
+    // ignores annotation transformers given through @Listeners.
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        if (testMethod != null && StateSeeder.replacesDependencies(testMethod)) {
+            annotation.setDependsOnMethods(new String[0]);
+        }
+    }
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        String parallelMode = ConfigReader.getParallelMode();
+        for (XmlSuite suite : suites) {
+            // parallel="methods" would let TestNG run the tests of one dependsOnMethods chain on different
+            // threads, and so in different browsers; the chains become parallel <test>s instead.
+            boolean methodsMode = parallelMode != null
+                ? XmlSuite.ParallelMode.getValidParallel(parallelMode) == XmlSuite.ParallelMode.METHODS
+                : suite.getParallel() == XmlSuite.ParallelMode.METHODS;
+            if (methodsMode || (parallelMode == null && ConfigReader.isDependencySchedulingEnabled())) {
+                if (TestScheduler.splitIntoChains(suite)) {
+                    continue;
+                }
+                if (methodsMode) {
+                    // A single chain has nothing to run side by side.
+                    suite.setParallel(XmlSuite.ParallelMode.NONE);
+                    continue;
+                }
+            }
+            if (parallelMode != null) {
+                suite.setParallel(XmlSuite.ParallelMode.getValidParallel(parallelMode));
+            }
+            // The suite's own thread-count stands unless -Dthreads is given.
+            if (suite.getParallel() != XmlSuite.ParallelMode.NONE && ConfigReader.isThreadCountSet()) {
+                suite.setThreadCount(ConfigReader.getThreadCount());
+            }
+        }
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            PagePerformance.clearViolations();
+            VisualRegression.clearFailures();
+        }
+    }
+
+    // Budget violations and visual mismatches are collected while the test runs and turned into a
+    // failure once it returns, so page objects' own try/catch blocks cannot swallow them.
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        List<String> violations = PagePerformance.takeViolations();
+        List<String> visualFailures = VisualRegression.takeFailures();
+        if (testResult.getStatus() != ITestResult.SUCCESS) {
+            return;
+        }
+        List<String> problems = new ArrayList<>();
+        if (!violations.isEmpty()) {
+            problems.add("Performance budget exceeded: " + String.join("; ", violations));
+        }
+        if (!visualFailures.isEmpty()) {
+            problems.add("Visual regression: " + String.join("; ", visualFailures));
+        }
+        if (!problems.isEmpty()) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError(String.join(" | ", problems)));
+        }
+    }
 
     @Override
     public void onStart(ISuite suite) {
         initializeReport();
+        resetRunState();
+        CommandStats.reset();
+        PagePerformance.reset();
+        VisualRegression.reset();
+        DomFingerprint.reset();
+        NetworkCapture.reset();
+        RunHistory.reset();
+        FlowCheckpoints.reset();
+        CatalogIndex.reset();
         log("=".repeat(80));
         log("E-COMMERCE AUTOMATION TEST EXECUTION REPORT");
         log("=".repeat(80));
@@ -35,10 +140,23 @@ public class TestListener implements ITestListener, ISuiteListener {
         log("Browser: " + ConfigReader.getBrowser());
         log("URL: " + ConfigReader.getUrl());
         log("=".repeat(80));
+        TestScheduler.logPlan();
+        EventLog.emit(EventLog.Type.RUN_START, "suite", suite.getName(), "browser", ConfigReader.getBrowser(),
+            "url", ConfigReader.getUrl());
+
+        if (ConfigReader.isDriverPoolEnabled()) {
+            DriverPool.getInstance(ConfigReader.getBrowser()).warmUp();
+        }
     }
 
     @Override
     public void onFinish(ISuite suite) {
+        int totalTests = testsRun.intValue();
+        int passedTests = testsPassed.intValue();
+        int failedTests = testsFailed.intValue();
+        int skippedTests = testsSkipped.intValue();
+        long totalProductCents = productCents.sum();
+
         log("=".repeat(80));
         log("TEST EXECUTION SUMMARY");
         log("=".repeat(80));
@@ -47,14 +165,16 @@ public class TestListener implements ITestListener, ISuiteListener {
         log("Passed: " + passedTests);
         log("Failed: " + failedTests);
         log("Skipped: " + skippedTests);
-        log("Total Product Cost: $" + String.format("%.2f", totalProductCost));
+        log("Total Product Cost: " + Money.ofCents(totalProductCents));
         log("");
+        EventLog.emit(EventLog.Type.RUN_END, "total", totalTests, "passed", passedTests, "failed", failedTests,
+            "skipped", skippedTests, "productCents", totalProductCents);
 
         if (!failureDetails.isEmpty()) {
             log("FAILURE DETAILS:");
             log("-".repeat(40));
-            for (String failure : failureDetails) {
-                log(failure);
+            for (FailureDetail failure : failureDetails) {
+                log(failure.describe());
             }
             log("");
         }
@@ -68,81 +188,163 @@ public class TestListener implements ITestListener, ISuiteListener {
             log("");
         }
 
+        PagePerformance.logSummary();
+        VisualRegression.logSummary();
+        DomFingerprint.logSummary();
+        DomFingerprint.save();
+        NetworkCapture.logSummary();
+        FlowCheckpoints.logSummary();
+        CatalogIndex.logSummary();
+        RunHistory.finishRun(totalTests, failedTests);
+        CommandStats.logSummary();
+        LeanMode.logSummary();
+
+        StorefrontReplayServer replayServer = StorefrontReplayServer.getRunningInstance();
+        if (replayServer != null) {
+            replayServer.logSummary();
+        }
+        LocatorRegistry.logSummary();
+        LocatorRegistry.save();
+
+        for (DriverPool driverPool : DriverPool.getExistingInstances()) {
+            driverPool.logMetrics();
+            driverPool.shutdown();
+        }
+
+        ScreenshotUtil.awaitPendingWrites();
+        if (logWriter.getDroppedEntries() > 0) {
+            log("Log entries dropped under backpressure: " + logWriter.getDroppedEntries());
+        }
         log("=".repeat(80));
         closeReport();
     }
 
     @Override
     public void onTestStart(ITestResult result) {
-        totalTests++;
+        testsRun.increment();
+        testBuffer.set(new StringBuilder());
         log("\n[TEST START] " + result.getMethod().getMethodName());
         log("Description: " + result.getMethod().getDescription());
+        EventLog.startTest(result.getMethod().getMethodName());
+        EventLog.emit(EventLog.Type.TEST_START, "description", result.getMethod().getDescription());
+        if (NetworkCapture.isEnabled()) {
+            NetworkCapture.beginTest(DriverFactory.getDriver(), result.getMethod().getMethodName());
+        }
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        passedTests++;
+        testsPassed.increment();
         log("[PASS] " + result.getMethod().getMethodName() + " - Execution Time: " +
             (result.getEndMillis() - result.getStartMillis()) + "ms");
+        RunHistory.recordTest(result.getMethod().getMethodName(), result.getEndMillis() - result.getStartMillis());
+        endNetworkCapture();
+        logLeanSavings(result);
+        emitTestEnd(result, "PASS", null);
+        flushTestBuffer();
+        releasePooledDriver(result);
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
-        failedTests++;
+        testsFailed.increment();
         String testName = result.getMethod().getMethodName();
         String errorMessage = (result.getThrowable() != null) ? result.getThrowable().getMessage() : "No message";
 
         log("[FAIL] " + testName);
         log("Error: " + errorMessage);
 
+        // The screenshot is written in the background; its path is resolved for the summary.
+        CompletableFuture<String> screenshot = CompletableFuture.completedFuture(null);
         try {
-            String screenshotPath = ScreenshotUtil.captureFailureScreenshot(
-                DriverFactory.getDriver(), testName);
-            if (screenshotPath != null) {
-                log("Screenshot saved: " + screenshotPath);
-            }
+            screenshot = ScreenshotUtil.captureFailureScreenshot(DriverFactory.getDriver(), testName);
+            log("Screenshot queued for " + testName);
+            screenshot.thenAccept(path -> {
+                if (path != null) {
+                    EventLog.emit(EventLog.Type.SCREENSHOT, "test", testName, "path", path);
+                }
+            });
         } catch (Exception e) {
             log("Failed to capture screenshot: " + e.getMessage());
         }
 
-        failureDetails.add("Test: " + testName + " | Error: " + errorMessage);
+        NetworkCapture.Result har = endNetworkCapture();
+        failureDetails.add(new FailureDetail(testName, errorMessage, screenshot, har == null ? null : har.path));
+        logLeanSavings(result);
+        emitTestEnd(result, "FAIL", errorMessage);
+        flushTestBuffer();
+        releasePooledDriver(result);
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        skippedTests++;
+        testsSkipped.increment();
         String reason = "No reason";
         if (result.getThrowable() != null && result.getThrowable().getMessage() != null) {
             reason = result.getThrowable().getMessage();
         }
         log("[SKIP] " + result.getMethod().getMethodName());
         log("Reason: " + reason);
+        endNetworkCapture();
+        logLeanSavings(result);
+        emitTestEnd(result, "SKIP", reason);
+        flushTestBuffer();
+        releasePooledDriver(result);
     }
 
     public static void log(String message) {
-        String timestamp = getCurrentTimestamp();
-        String logEntry = "[" + timestamp + "] " + message;
-        System.out.println(logEntry);
+        log(LogLevel.INFO, message);
+    }
+
+    public static void log(LogLevel level, String message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        String logEntry = "[" + getCurrentTimestamp() + "] " + message;
+
+        StringBuilder buffer = testBuffer.get();
+        if (buffer != null) {
+            buffer.append(logEntry).append(System.lineSeparator());
+            logWriter.write(level, logEntry, null);
+        } else {
+            logWriter.write(level, logEntry, logEntry + System.lineSeparator());
+        }
+    }
 
-        if (reportWriter != null) {
-            reportWriter.println(logEntry);
-            reportWriter.flush();
+    // The supplier is only invoked when the level is enabled, so callers can defer string building.
+    public static void log(LogLevel level, Supplier<String> messageSupplier) {
+        if (isEnabled(level)) {
+            log(level, messageSupplier.get());
         }
     }
 
+    public static void debug(Supplier<String> messageSupplier) {
+        log(LogLevel.DEBUG, messageSupplier);
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.compareTo(minimumLevel) >= 0;
+    }
+
+    // Already formatted report text, e.g. a shard's own report merged by ShardCoordinator.
+    static void appendRaw(String text) {
+        logWriter.write(LogLevel.INFO, null, text);
+    }
+
     public static void logValidation(String validation) {
         log("[VALIDATION] " + validation);
+        EventLog.emit(EventLog.Type.VALIDATION, "message", validation);
     }
 
     public static void logProductInfo(String productName, String price, String url) {
         log("[PRODUCT] Name: " + productName + " | Price: " + price + " | URL: " + url);
 
-        try {
-            String priceValue = price.replaceAll("[^0-9.]", "");
-            if (!priceValue.isEmpty()) {
-                totalProductCost += Double.parseDouble(priceValue);
-            }
-        } catch (NumberFormatException e) {
+        long cents = Money.parseCents(price);
+        EventLog.emit(EventLog.Type.PRODUCT, "name", productName, "price", price,
+            "cents", cents == Money.NOT_A_PRICE ? null : cents, "url", url);
+        if (cents != Money.NOT_A_PRICE) {
+            productCents.add(cents);
+        } else {
             log("[WARNING] Could not parse price: " + price);
         }
     }
@@ -151,9 +353,11 @@ public class TestListener implements ITestListener, ISuiteListener {
         String skippedInfo = elementType + " - " + reason;
         log("[SKIPPED] " + skippedInfo);
         skippedElements.add(skippedInfo);
+        EventLog.emit(EventLog.Type.SKIPPED_ELEMENT, "element", elementType, "reason", reason);
     }
 
     public static void logCartValidation(boolean isValid, String expectedTotal, String actualTotal) {
+        EventLog.emit(EventLog.Type.CART_VALIDATION, "passed", isValid, "expected", expectedTotal, "actual", actualTotal);
         if (isValid) {
             log("[CART VALIDATION] PASSED - Expected: " + expectedTotal + ", Actual: " + actualTotal);
         } else {
@@ -161,21 +365,120 @@ public class TestListener implements ITestListener, ISuiteListener {
         }
     }
 
-    private static void initializeReport() {
-        try {
-            reportWriter = new PrintWriter(new FileWriter(REPORT_FILE, false));
-        } catch (IOException e) {
-            System.err.println("Failed to initialize report file: " + e.getMessage());
+    private static void emitTestEnd(ITestResult result, String status, String error) {
+        EventLog.emit(EventLog.Type.TEST_END, "status", status, "millis", result.getEndMillis() - result.getStartMillis(),
+            "error", error);
+        EventLog.endTest();
+    }
+
+    // A shard worker runs several suites in one JVM, so counters start from zero for each.
+    private static void resetRunState() {
+        testsRun.reset();
+        testsPassed.reset();
+        testsFailed.reset();
+        testsSkipped.reset();
+        productCents.reset();
+        failureDetails.clear();
+        skippedElements.clear();
+    }
+
+    private static NetworkCapture.Result endNetworkCapture() {
+        return NetworkCapture.isEnabled() ? NetworkCapture.endTest(DriverFactory.getDriver()) : null;
+    }
+
+    private static void logLeanSavings(ITestResult result) {
+        if (ConfigReader.isLeanModeEnabled()) {
+            LeanMode.logTestSavings(DriverFactory.getDriver(), result.getMethod().getMethodName());
+        }
+    }
+
+    // Pooled browsers are leased per test rather than per class. A test that others depend on keeps
+    // its browser, since the later tests of a dependsOnMethods chain pick up the cart and session
+    // it left; the last test of the chain hands it back.
+    private static void releasePooledDriver(ITestResult result) {
+        if (!ConfigReader.isDriverPoolEnabled() || hasDependents(result.getMethod(), result.getTestContext())) {
+            return;
+        }
+        DriverFactory.quitDriver();
+    }
+
+    private static boolean hasDependents(ITestNGMethod method, ITestContext context) {
+        for (ITestNGMethod other : context.getAllTestMethods()) {
+            for (String dependency : other.getMethodsDependedUpon()) {
+                if (dependency.equals(method.getQualifiedName())) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
-    private static void closeReport() {
-        if (reportWriter != null) {
-            reportWriter.close();
+    private static void flushTestBuffer() {
+        StringBuilder buffer = testBuffer.get();
+        testBuffer.remove();
+        if (buffer != null && buffer.length() > 0) {
+            writeToReport(buffer.toString());
         }
     }
 
+    private static void writeToReport(String text) {
+        logWriter.write(LogLevel.INFO, null, text);
+    }
+
+    static void initializeReport() {
+        logWriter.openReport(ConfigReader.getReportFile());
+        EventLog.open();
+    }
+
+    // Waits for the background writer to drain the queue before the file is closed.
+    static void closeReport() {
+        logWriter.drain();
+        logWriter.closeReport();
+        EventLog.close();
+    }
+
+    // Formatting is only redone when the wall-clock second changes.
     private static String getCurrentTimestamp() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        long epochSecond = System.currentTimeMillis() / 1000;
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.epochSecond != epochSecond) {
+            cached = new CachedTimestamp(epochSecond, TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(epochSecond)));
+            cachedTimestamp = cached;
+        }
+        return cached.text;
+    }
+
+    private static class CachedTimestamp {
+        final long epochSecond;
+        final String text;
+
+        CachedTimestamp(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+
+    private static class FailureDetail {
+        final String testName;
+        final String errorMessage;
+        final CompletableFuture<String> screenshot;
+        final String harPath;
+
+        FailureDetail(String testName, String errorMessage, CompletableFuture<String> screenshot, String harPath) {
+            this.testName = testName;
+            this.errorMessage = errorMessage;
+            this.screenshot = screenshot;
+            this.harPath = harPath;
+        }
+
+        String describe() {
+            String detail = "Test: " + testName + " | Error: " + errorMessage + (harPath == null ? "" : " | HAR: " + harPath);
+            try {
+                String path = screenshot.get(30, TimeUnit.SECONDS);
+                return path == null ? detail : detail + " | Screenshot: " + path;
+            } catch (Exception e) {
+                return detail + " | Screenshot: not written (" + e.getMessage() + ")";
+            }
+        }
     }
 }
@@ -0,0 +1,176 @@
+package utils;
+
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds the dependsOnMethods graph of a suite and turns every connected group of methods into its
+// own <test>, run with parallel="tests" so independent groups get their own thread and browser.
+// A group stays in one <test> because later methods rely on the browser state (cart, session) the
+// earlier ones left behind. Groups start longest first by their median durations in the run
+// history, so the critical path is never queued behind short work and the wall clock approaches
+// the longest group rather than the sum of all tests.
+public class TestScheduler {
+    static final double UNKNOWN_TEST_MILLIS = 60_000;
+
+    private static volatile List<String> plan = new ArrayList<>();
+
+    // Returns false, leaving the suite as declared, when there is nothing to run side by side.
+    public static boolean splitIntoChains(XmlSuite suite) {
+        plan = new ArrayList<>();
+        Map<String, Double> historicalMillis = RunHistory.historicalTestMillis();
+        List<XmlTest> chains = new ArrayList<>();
+        Map<XmlTest, Double> estimates = new IdentityHashMap<>();
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                for (List<String> chain : dependencyChains(xmlClass)) {
+                    XmlTest chainTest = chainTest(test, xmlClass, chain);
+                    chains.add(chainTest);
+                    estimates.put(chainTest, estimate(chain, historicalMillis));
+                }
+            }
+        }
+        if (chains.size() < 2) {
+            return false;
+        }
+
+        chains.sort(Comparator.comparingDouble((XmlTest test) -> estimates.get(test)).reversed());
+        int maxThreads = ConfigReader.getScheduleMaxThreads();
+        if (maxThreads == 0 && ConfigReader.isThreadCountSet()) {
+            maxThreads = ConfigReader.getThreadCount();
+        }
+        int threads = maxThreads > 0 ? Math.min(chains.size(), maxThreads) : chains.size();
+        suite.getTests().clear();
+        for (XmlTest chain : chains) {
+            chain.setSuite(suite);
+            suite.getTests().add(chain);
+        }
+        suite.setParallel(XmlSuite.ParallelMode.TESTS);
+        suite.setThreadCount(threads);
+
+        List<String> lines = new ArrayList<>();
+        double serial = 0;
+        double[] lanes = new double[threads];
+        for (XmlTest chain : chains) {
+            double estimate = estimates.get(chain);
+            serial += estimate;
+            // Same greedy assignment as the thread pool: the next group goes to the first free thread.
+            int lane = 0;
+            for (int i = 1; i < lanes.length; i++) {
+                if (lanes[i] < lanes[lane]) {
+                    lane = i;
+                }
+            }
+            lanes[lane] += estimate;
+            lines.add(chain.getName() + " | Estimated: " + Math.round(estimate) + "ms");
+        }
+        double wall = 0;
+        for (double lane : lanes) {
+            wall = Math.max(wall, lane);
+        }
+        lines.add("Threads: " + threads + " | Estimated wall clock: " + Math.round(wall) + "ms (serial: " +
+            Math.round(serial) + "ms)");
+        plan = lines;
+        return true;
+    }
+
+    public static void logPlan() {
+        List<String> lines = plan;
+        if (lines.isEmpty()) {
+            return;
+        }
+        TestListener.log("DEPENDENCY SCHEDULE (longest first):");
+        TestListener.log("-".repeat(40));
+        for (String line : lines) {
+            TestListener.log(line);
+        }
+        TestListener.log("");
+    }
+
+    static double estimate(List<String> methods, Map<String, Double> historicalMillis) {
+        double estimate = 0;
+        for (String method : methods) {
+            estimate += historicalMillis.getOrDefault(method, UNKNOWN_TEST_MILLIS);
+        }
+        return estimate;
+    }
+
+    private static XmlTest chainTest(XmlTest test, XmlClass xmlClass, List<String> chain) {
+        XmlTest chainTest = new XmlTest();
+        chainTest.setName(test.getName() + " | " + String.join(" > ", chain));
+        chainTest.setParameters(test.getLocalParameters());
+        chainTest.setPreserveOrder(true);
+        chainTest.setVerbose(test.getVerbose());
+        XmlClass chainClass = new XmlClass(xmlClass.getName());
+        List<XmlInclude> includes = new ArrayList<>();
+        for (String method : chain) {
+            includes.add(new XmlInclude(method));
+        }
+        chainClass.setIncludedMethods(includes);
+        chainTest.setXmlClasses(List.of(chainClass));
+        return chainTest;
+    }
+
+    // One list per connected group of included methods under dependsOnMethods, each in priority order.
+    static List<List<String>> dependencyChains(XmlClass xmlClass) {
+        Map<String, Test> annotations = new LinkedHashMap<>();
+        Map<String, String[]> dependencies = new HashMap<>();
+        for (Method method : xmlClass.getSupportClass().getMethods()) {
+            Test test = method.getAnnotation(Test.class);
+            if (test != null && test.enabled()) {
+                annotations.put(method.getName(), test);
+                // Same rule TestListener applies to the annotation TestNG runs with.
+                dependencies.put(method.getName(),
+                    StateSeeder.replacesDependencies(method) ? new String[0] : test.dependsOnMethods());
+            }
+        }
+        List<String> included = new ArrayList<>();
+        for (XmlInclude include : xmlClass.getIncludedMethods()) {
+            if (annotations.containsKey(include.getName())) {
+                included.add(include.getName());
+            }
+        }
+        if (included.isEmpty()) {
+            included.addAll(annotations.keySet());
+        }
+
+        // Union-find over the included methods and everything they depend on.
+        Map<String, String> parent = new HashMap<>();
+        for (String method : included) {
+            parent.put(method, method);
+        }
+        for (String method : included) {
+            for (String dependency : dependencies.get(method)) {
+                if (parent.containsKey(dependency)) {
+                    parent.put(root(parent, method), root(parent, dependency));
+                }
+            }
+        }
+        Map<String, List<String>> chains = new LinkedHashMap<>();
+        included.sort(Comparator.comparingInt((String method) -> annotations.get(method).priority()));
+        for (String method : included) {
+            chains.computeIfAbsent(root(parent, method), k -> new ArrayList<>()).add(method);
+        }
+        return new ArrayList<>(chains.values());
+    }
+
+    private static String root(Map<String, String> parent, String method) {
+        String current = method;
+        while (!parent.get(current).equals(current)) {
+            current = parent.get(current);
+        }
+        parent.put(method, current);
+        return current;
+    }
+}
@@ -0,0 +1,217 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Synthetic registration data with the same columns as testdata.csv. Row n for a given seed is
+// always the same record: every field is derived from a hash of (seed, n) with no shared random
+// state, so any number of workers can generate concurrently. Emails and login names embed a
+// 64-bit tag of the seed (mix is a bijection, so two seeds never share one) and the row number,
+// so they never collide within a run or across runs with different seeds.
+public class UserDataGenerator {
+    public static final List<String> COLUMNS = List.of("firstName", "lastName", "email", "telephone", "company",
+        "address1", "city", "country", "zone", "postcode", "password");
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Karen",
+        "Daniel", "Lisa", "Matthew", "Nancy", "Anthony", "Betty", "Mark", "Sandra", "Priya", "Ashley",
+        "Kevin", "Emily", "Brian", "Donna", "George", "Michelle", "Wei", "Carol", "Ahmed", "Amanda"};
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+        "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Patel"};
+    private static final String[] STREETS = {
+        "Main Street", "Oak Avenue", "Pine Road", "Maple Drive", "Cedar Lane", "Elm Street", "Birch Boulevard",
+        "Spruce Street", "Willow Way", "Lakeview Drive", "Park Avenue", "Hillcrest Road", "River Road", "Sunset Boulevard"};
+    private static final String[] COMPANY_WORDS = {
+        "Acme", "Summit", "Blue Ridge", "Northwind", "Apex", "Pioneer", "Evergreen", "Silverline", "Harbor", "Keystone"};
+    private static final String[] COMPANY_SUFFIXES = {"Corp", "LLC", "Solutions", "Industries", "Group", "Labs"};
+    private static final String PASSWORD_SYMBOLS = "!@#$%*";
+    private static final int RUN_TAG_LENGTH = Long.toUnsignedString(-1L, 36).length();
+    private static final String ALPHANUMERIC = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789";
+
+    // Country and zone names exactly as the storefront's registration dropdowns list them, with a
+    // city in that zone and a postcode template ('#' digit, 'A' letter) valid for it.
+    private static final Region[] REGIONS = {
+        new Region("United States", "New York", "New York", "100##"),
+        new Region("United States", "California", "Los Angeles", "900##"),
+        new Region("United States", "California", "San Diego", "921##"),
+        new Region("United States", "Illinois", "Chicago", "606##"),
+        new Region("United States", "Texas", "Houston", "770##"),
+        new Region("United States", "Texas", "Austin", "787##"),
+        new Region("United States", "Arizona", "Phoenix", "850##"),
+        new Region("United States", "Pennsylvania", "Philadelphia", "191##"),
+        new Region("United States", "Florida", "Miami", "331##"),
+        new Region("United States", "Washington", "Seattle", "981##"),
+        new Region("United States", "Massachusetts", "Boston", "021##"),
+        new Region("United States", "Georgia", "Atlanta", "303##"),
+        new Region("United States", "Colorado", "Denver", "802##"),
+        new Region("Canada", "Ontario", "Toronto", "M#A #A#"),
+        new Region("Canada", "British Columbia", "Vancouver", "V#A #A#"),
+        new Region("Canada", "Quebec", "Montreal", "H#A #A#"),
+        new Region("Canada", "Alberta", "Calgary", "T#A #A#")};
+
+    private final long seed;
+    private final String runTag;
+    private final long firstRow;
+    private final long stride;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public UserDataGenerator(long seed) {
+        this(seed, 0, 1);
+    }
+
+    // next() then walks rows firstRow, firstRow + stride, ... so generators sharing a seed with
+    // different first rows and the same stride never hand out the same user.
+    public UserDataGenerator(long seed, long firstRow, long stride) {
+        this.seed = seed;
+        this.runTag = runTag(seed);
+        this.firstRow = firstRow;
+        this.stride = stride;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Next row in sequence; each call across all threads gets a distinct row number.
+    public Map<String, String> next() {
+        return generate(firstRow + sequence.getAndIncrement() * stride);
+    }
+
+    public Stream<Map<String, String>> stream(long rows) {
+        return LongStream.range(0, rows).mapToObj(this::generate);
+    }
+
+    public Map<String, String> generate(long row) {
+        long state = mix(seed ^ mix(row + 0x9E3779B97F4A7C15L));
+        String firstName = FIRST_NAMES[pick(state, 0, FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[pick(state, 1, LAST_NAMES.length)];
+        Region region = REGIONS[pick(state, 2, REGIONS.length)];
+        String rowTag = Long.toString(row, 36);
+
+        Map<String, String> user = new HashMap<>(16);
+        user.put("firstName", firstName);
+        user.put("lastName", lastName);
+        user.put("email", new StringBuilder(64).append(firstName.toLowerCase()).append('.')
+            .append(lastName.toLowerCase()).append('.').append(runTag).append('.').append(rowTag)
+            .append("@example.com").toString());
+        user.put("loginName", new StringBuilder(40).append(firstName.toLowerCase())
+            .append(runTag).append(rowTag).toString());
+        user.put("telephone", telephone(state));
+        user.put("company", COMPANY_WORDS[pick(state, 3, COMPANY_WORDS.length)] + " " +
+            COMPANY_SUFFIXES[pick(state, 4, COMPANY_SUFFIXES.length)]);
+        user.put("address1", (100 + pick(state, 5, 9800)) + " " + STREETS[pick(state, 6, STREETS.length)]);
+        user.put("city", region.city);
+        user.put("country", region.country);
+        user.put("zone", region.zone);
+        user.put("postcode", fillTemplate(region.postcodeTemplate, mix(state + 7)));
+        user.put("password", password(mix(state + 8)));
+        return user;
+    }
+
+    // Writes rows in testdata.csv's column layout, ready for TestDataStore.
+    public void writeCsv(Path path, long rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", COLUMNS));
+            writer.newLine();
+            StringBuilder line = new StringBuilder(256);
+            for (long row = 0; row < rows; row++) {
+                Map<String, String> user = generate(row);
+                line.setLength(0);
+                for (int i = 0; i < COLUMNS.size(); i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    line.append(user.get(COLUMNS.get(i)));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    // Fixed width, so the tag and row number concatenated in login names cannot run into each other.
+    static String runTag(long seed) {
+        String tag = Long.toUnsignedString(mix(seed), 36);
+        return "0".repeat(RUN_TAG_LENGTH - tag.length()) + tag;
+    }
+
+    private static String telephone(long state) {
+        long digits = mix(state + 9);
+        StringBuilder phone = new StringBuilder("+1");
+        phone.append(2 + Math.floorMod(digits, 8));
+        for (int i = 0; i < 9; i++) {
+            digits = mix(digits);
+            phone.append(Math.floorMod(digits, 10));
+        }
+        return phone.toString();
+    }
+
+    // 12 characters with at least one upper, lower, digit and symbol.
+    private static String password(long state) {
+        StringBuilder password = new StringBuilder(12);
+        password.append((char) ('A' + Math.floorMod(state, 26)));
+        for (int i = 0; i < 8; i++) {
+            state = mix(state);
+            password.append(ALPHANUMERIC.charAt(Math.floorMod(state, ALPHANUMERIC.length())));
+        }
+        state = mix(state);
+        password.append((char) ('a' + Math.floorMod(state, 26)));
+        password.append(Math.floorMod(state >>> 8, 10));
+        password.append(PASSWORD_SYMBOLS.charAt(Math.floorMod(state >>> 16, PASSWORD_SYMBOLS.length())));
+        return password.toString();
+    }
+
+    private static String fillTemplate(String template, long state) {
+        StringBuilder value = new StringBuilder(template.length());
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            state = mix(state);
+            if (c == '#') {
+                value.append(Math.floorMod(state, 10));
+            } else if (c == 'A') {
+                value.append((char) ('A' + Math.floorMod(state, 26)));
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static int pick(long state, int salt, int bound) {
+        return Math.floorMod(mix(state + salt), bound);
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Region {
+        final String country;
+        final String zone;
+        final String city;
+        final String postcodeTemplate;
+
+        Region(String country, String zone, String city, String postcodeTemplate) {
+            this.country = country;
+            this.zone = zone;
+            this.city = city;
+            this.postcodeTemplate = postcodeTemplate;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+public class UserDataGeneratorTest {
+    private static final int ROWS = 3_000_000;
+
+    // Every email is reduced to a 64-bit hash; all hashes distinct proves all emails distinct.
+    @Test
+    public void parallelGenerationYieldsNoDuplicateEmails() {
+        UserDataGenerator generator = new UserDataGenerator(42);
+        long[] hashes = new long[ROWS];
+        LongStream.range(0, ROWS).parallel().forEach(row ->
+            hashes[(int) row] = fnv64(generator.generate(row).get("email")));
+        Arrays.parallelSort(hashes);
+        for (int i = 1; i < hashes.length; i++) {
+            Assert.assertNotEquals(hashes[i], hashes[i - 1], "duplicate email hash near sorted position " + i);
+        }
+    }
+
+    @Test
+    public void sameSeedSameUsersDifferentSeedDifferentEmails() {
+        Map<String, String> first = new UserDataGenerator(7).generate(123);
+        Assert.assertEquals(new UserDataGenerator(7).generate(123), first);
+        Assert.assertNotEquals(new UserDataGenerator(8).generate(123).get("email"), first.get("email"));
+    }
+
+    @Test
+    public void runTagHasFixedWidth() {
+        int width = UserDataGenerator.runTag(0).length();
+        for (long seed : new long[] {1, 2, -1, Long.MIN_VALUE, 0x9E3779B97F4A7C15L, System.nanoTime()}) {
+            Assert.assertEquals(UserDataGenerator.runTag(seed).length(), width, "seed " + seed);
+        }
+    }
+
+    private static long fnv64(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,209 @@
+package utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One browserless shopper walking the ECommerceTest journey over plain HTTP: home page, a random
+// category, a random product, add to cart, cart, checkout. Cookies are kept per user by hand so all
+// users can share one HttpClient; each iteration starts a fresh session, like a new browser would.
+class VirtualUser {
+    static final List<String> STEPS = List.of("HomePage", "CategoryPage", "ProductPage", "AddToCart", "CartPage", "CheckoutPage");
+
+    private static final int MAX_REDIRECTS = 5;
+    private static final Pattern CATEGORY_LINK = Pattern.compile(
+        "href=[\"']([^\"']*rt=product/category[^\"']*path=\\d+[^\"']*)[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRODUCT_LINK = Pattern.compile(
+        "href=[\"']([^\"']*rt=product/product[^\"']*product_id=\\d+[^\"']*)[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANCHOR = Pattern.compile("<a\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    VirtualUser(HttpClient client, URI baseUri) {
+        this.client = client;
+        this.baseUri = baseUri;
+    }
+
+    // Runs one journey. Each step's latency goes to the listener; the first failing step ends it. A
+    // step with no link to follow is reported as unreachable, without a latency sample.
+    boolean runIteration(StepListener listener, Duration thinkTime) throws InterruptedException {
+        cookies.clear();
+        String page = step(listener, "HomePage", () -> get(baseUri));
+        if (page == null) {
+            return false;
+        }
+        think(thinkTime);
+
+        URI categoryUri = randomLink(page, CATEGORY_LINK);
+        if (categoryUri == null) {
+            listener.onUnreachable("CategoryPage");
+            return false;
+        }
+        page = step(listener, "CategoryPage", () -> get(categoryUri));
+        if (page == null) {
+            return false;
+        }
+        think(thinkTime);
+
+        URI productUri = randomLink(page, PRODUCT_LINK);
+        if (productUri == null) {
+            listener.onUnreachable("ProductPage");
+            return false;
+        }
+        String productPage = step(listener, "ProductPage", () -> get(productUri));
+        if (productPage == null) {
+            return false;
+        }
+        think(thinkTime);
+
+        page = step(listener, "AddToCart", () -> addToCart(productUri, productPage));
+        if (page == null) {
+            return false;
+        }
+        think(thinkTime);
+
+        page = step(listener, "CartPage", () -> get(baseUri.resolve("index.php?rt=checkout/cart")));
+        if (page == null) {
+            return false;
+        }
+        think(thinkTime);
+
+        URI checkoutUri = checkoutLink(page);
+        return step(listener, "CheckoutPage", () -> get(checkoutUri)) != null;
+    }
+
+    private String step(StepListener listener, String name, Request request) {
+        long start = System.nanoTime();
+        String body = null;
+        try {
+            body = request.send();
+        } catch (IOException e) {
+            TestListener.log(LogLevel.DEBUG, "Virtual user " + name + " failed: " + e.getMessage());
+        }
+        listener.onStep(name, System.nanoTime() - start, body != null);
+        return body;
+    }
+
+    private String addToCart(URI productUri, String productPage) throws IOException {
+        StateSeeder.HtmlForm form = StateSeeder.HtmlForm.find(productPage, "product");
+        if (form == null) {
+            throw new IOException("No add-to-cart form on " + productUri);
+        }
+        form.fields.putIfAbsent("quantity", "1");
+        StringJoiner body = new StringJoiner("&");
+        for (Map.Entry<String, String> field : form.fields.entrySet()) {
+            body.add(URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "=" +
+                URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8));
+        }
+        return send(productUri.resolve(form.action), body.toString());
+    }
+
+    private String get(URI uri) throws IOException {
+        return send(uri, null);
+    }
+
+    // Follows redirects itself so cookies set on a 302 (the add-to-cart response) are kept.
+    private String send(URI uri, String formBody) throws IOException {
+        for (int redirect = 0; redirect <= MAX_REDIRECTS; redirect++) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(ConfigReader.getTimeout()));
+            if (!cookies.isEmpty()) {
+                StringJoiner cookieHeader = new StringJoiner("; ");
+                cookies.forEach((name, value) -> cookieHeader.add(name + "=" + value));
+                builder.header("Cookie", cookieHeader.toString());
+            }
+            if (formBody != null) {
+                builder.header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(formBody));
+            }
+
+            HttpResponse<String> response;
+            try {
+                response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while calling " + uri, e);
+            }
+            for (String setCookie : response.headers().allValues("Set-Cookie")) {
+                String pair = setCookie.split(";", 2)[0];
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    cookies.put(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim());
+                }
+            }
+
+            int status = response.statusCode();
+            if (status >= 300 && status < 400 && response.headers().firstValue("Location").isPresent()) {
+                uri = uri.resolve(response.headers().firstValue("Location").get().replace("&amp;", "&"));
+                formBody = null;
+                continue;
+            }
+            if (status >= 400) {
+                throw new IOException("HTTP " + status + " for " + uri);
+            }
+            return response.body();
+        }
+        throw new IOException("Too many redirects from " + uri);
+    }
+
+    private URI randomLink(String html, Pattern pattern) {
+        List<String> links = new ArrayList<>();
+        Matcher matcher = pattern.matcher(html);
+        while (matcher.find()) {
+            links.add(matcher.group(1));
+        }
+        if (links.isEmpty()) {
+            return null;
+        }
+        String link = StateSeeder.HtmlForm.decode(links.get(ThreadLocalRandom.current().nextInt(links.size())));
+        return baseUri.resolve(link);
+    }
+
+    // The cart's checkout button, or the login page guests are sent to when it cannot be found.
+    private URI checkoutLink(String cartHtml) {
+        Matcher anchors = ANCHOR.matcher(cartHtml);
+        while (anchors.find()) {
+            Map<String, String> anchor = StateSeeder.HtmlForm.attributes(anchors.group());
+            String id = anchor.get("id");
+            String cssClass = anchor.get("class");
+            String href = anchor.get("href");
+            boolean checkout = (id != null && id.startsWith("cart_checkout")) ||
+                (cssClass != null && cssClass.contains("checkout"));
+            if (checkout && href != null && !href.startsWith("#")) {
+                return baseUri.resolve(href);
+            }
+        }
+        return baseUri.resolve("index.php?rt=account/login");
+    }
+
+    private static void think(Duration thinkTime) throws InterruptedException {
+        long millis = thinkTime.toMillis();
+        if (millis > 0) {
+            Thread.sleep(millis / 2 + ThreadLocalRandom.current().nextLong(millis + 1));
+        }
+    }
+
+    interface StepListener {
+        void onStep(String step, long elapsedNanos, boolean success);
+
+        void onUnreachable(String step);
+    }
+
+    private interface Request {
+        String send() throws IOException;
+    }
+}
@@ -0,0 +1,82 @@
+package utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VirtualUserTest {
+    private StubStorefront storefront;
+
+    @BeforeClass
+    public void startStorefront() throws IOException {
+        storefront = StubStorefront.journey();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStorefront() {
+        storefront.close();
+    }
+
+    @Test
+    public void journeyWalksEveryStep() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        VirtualUser user = new VirtualUser(HttpClient.newHttpClient(), URI.create(storefront.url("/shop/")));
+        Assert.assertTrue(user.runIteration(listener, Duration.ZERO));
+        Assert.assertEquals(listener.succeeded, VirtualUser.STEPS);
+        Assert.assertTrue(listener.failed.isEmpty());
+        Assert.assertTrue(listener.unreachable.isEmpty());
+    }
+
+    @Test
+    public void missingLinkIsAnErrorWithoutALatencySample() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        VirtualUser user = new VirtualUser(HttpClient.newHttpClient(), URI.create(storefront.url("/empty/")));
+        Assert.assertFalse(user.runIteration(listener, Duration.ZERO));
+        Assert.assertEquals(listener.succeeded, List.of("HomePage"));
+        Assert.assertTrue(listener.failed.isEmpty(), "no request was made for the category page");
+        Assert.assertEquals(listener.unreachable, List.of("CategoryPage"));
+    }
+
+    // A few concurrent users; the 300-user throughput run is LoadEngineBenchmark in the JMH profile.
+    @Test
+    public void concurrentUsersCompleteJourneysWithoutErrors() throws InterruptedException {
+        LoadEngine engine = new LoadEngine(storefront.url("/shop/"), 4, Duration.ZERO, Duration.ofMillis(500),
+            Duration.ZERO);
+        engine.run();
+        Assert.assertTrue(engine.getCompletedJourneys() >= 4, "completed " + engine.getCompletedJourneys());
+        Assert.assertEquals(engine.getFailedJourneys(), 0);
+        Assert.assertEquals(engine.getErrorRate(), 0.0);
+    }
+
+    @Test
+    public void unreachableStepsCountTowardsTheErrorRate() throws InterruptedException {
+        LoadEngine engine = new LoadEngine(storefront.url("/empty/"), 1, Duration.ZERO, Duration.ofMillis(200), Duration.ZERO);
+        engine.run();
+        Assert.assertEquals(engine.getCompletedJourneys(), 0);
+        Assert.assertEquals(engine.getErrorRate(), 0.5, "each journey is one good home page and one unreachable step");
+    }
+
+    private static class RecordingListener implements VirtualUser.StepListener {
+        final List<String> succeeded = new ArrayList<>();
+        final List<String> failed = new ArrayList<>();
+        final List<String> unreachable = new ArrayList<>();
+
+        @Override
+        public void onStep(String step, long elapsedNanos, boolean success) {
+            (success ? succeeded : failed).add(step);
+        }
+
+        @Override
+        public void onUnreachable(String step) {
+            unreachable.add(step);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package utils;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Screenshot comparison against a stored baseline per page type. A perceptual hash gives a cheap
+// similarity score that survives size changes; when sizes match, a tiled per-pixel diff spread over
+// the ForkJoin pool finds exactly which areas changed. Configured ignore regions (rotating banners,
+// carousels) are blanked in both images first. Failing comparisons write a diff image. A page with
+// no baseline yet has its capture stored for review and fails as NEW, unless visual.updateBaselines
+// is set, in which case every capture is stored as the baseline. A capture that cannot be taken or
+// decoded fails as ERROR.
+public class VisualRegression {
+    private static final int HASH_SIZE = 32;
+    private static final int HASH_BITS_SIDE = 8;
+    private static final int LEAF_TILES = 16;
+    // A tile counts as changed when more than this share of its pixels differ.
+    private static final double TILE_CHANGE_THRESHOLD = 0.01;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+
+    private static final Map<String, Image> baselines = new ConcurrentHashMap<>();
+    private static final Queue<Verdict> verdicts = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<List<String>> failures = ThreadLocal.withInitial(ArrayList::new);
+
+    public static Verdict check(WebDriver driver, String pageType) {
+        long started = System.nanoTime();
+        Verdict verdict;
+        try {
+            byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            verdict = compare(pageType, png);
+        } catch (Exception e) {
+            verdict = new Verdict(pageType, Verdict.ERROR, 0, 0, 0, null, e.getMessage());
+        }
+        verdict.millis = (System.nanoTime() - started) / 1_000_000;
+        verdicts.add(verdict);
+        // A page that could not be captured or compared is not known to look right either.
+        boolean failed = !verdict.passed();
+        if (failed) {
+            failures.get().add(verdict.describe());
+        }
+        TestListener.log(failed && !Verdict.FAIL.equals(verdict.status) ? LogLevel.WARN : LogLevel.INFO,
+            "[VISUAL] " + verdict.describe());
+        return verdict;
+    }
+
+    static Verdict compare(String pageType, byte[] png) throws IOException {
+        Image current = Image.decode(png);
+        List<int[]> ignoreRegions = parseRegions(ConfigReader.getVisualIgnoreRegions(pageType));
+        current.blank(ignoreRegions);
+
+        Path baselinePath = Paths.get(ConfigReader.getVisualDir(), "baselines", pageType + ".png");
+        boolean updating = ConfigReader.isVisualUpdateBaselines();
+        Image baseline = updating ? null : loadBaseline(pageType, baselinePath, ignoreRegions);
+        if (baseline == null) {
+            storeBaseline(baselinePath, png);
+            baselines.put(pageType, current);
+            return updating
+                ? new Verdict(pageType, Verdict.BASELINE, 0, 0, 0, baselinePath.toString(), "baseline stored")
+                : new Verdict(pageType, Verdict.NEW, 0, 0, 0, baselinePath.toString(),
+                    "no baseline to compare with; capture stored, review it and rerun");
+        }
+
+        int hashDistance = Long.bitCount(baseline.perceptualHash() ^ current.perceptualHash());
+        if (baseline.width != current.width || baseline.height != current.height) {
+            boolean similar = hashDistance <= ConfigReader.getVisualMaxHashDistance();
+            return new Verdict(pageType, similar ? Verdict.PASS : Verdict.FAIL, hashDistance, 0, 0, null,
+                "size changed from " + baseline.width + "x" + baseline.height + " to " + current.width + "x" + current.height);
+        }
+
+        int tileSize = ConfigReader.getVisualTileSize();
+        TileDiff diff = ForkJoinPool.commonPool().invoke(new TileDiff(baseline, current, tileSize, 0,
+            tileCount(current, tileSize), ConfigReader.getVisualPixelTolerance()));
+        if (diff.changedTiles.isEmpty()) {
+            return new Verdict(pageType, Verdict.PASS, hashDistance, 0, diff.tiles, null, "no changed tiles");
+        }
+        Path diffPath = writeDiffImage(pageType, current, diff.changedTiles, tileSize, baseline);
+        return new Verdict(pageType, Verdict.FAIL, hashDistance, diff.changedTiles.size(), diff.tiles,
+            diffPath.toString(), diff.changedPixels + " pixels differ");
+    }
+
+    // Returns and clears the failed comparisons recorded on this thread.
+    public static List<String> takeFailures() {
+        List<String> taken = failures.get();
+        failures.remove();
+        return taken;
+    }
+
+    public static void clearFailures() {
+        failures.remove();
+    }
+
+    public static void logSummary() {
+        if (verdicts.isEmpty()) {
+            return;
+        }
+        TestListener.log("VISUAL REGRESSION:");
+        TestListener.log("-".repeat(40));
+        int newBaselines = 0;
+        int errors = 0;
+        for (Verdict verdict : verdicts) {
+            TestListener.log(verdict.describe());
+            if (Verdict.NEW.equals(verdict.status)) {
+                newBaselines++;
+            } else if (Verdict.ERROR.equals(verdict.status)) {
+                errors++;
+            }
+        }
+        if (newBaselines > 0) {
+            TestListener.log("New baselines stored without a comparison: " + newBaselines);
+        }
+        if (errors > 0) {
+            TestListener.log("Pages that could not be captured or compared: " + errors);
+        }
+        TestListener.log("");
+    }
+
+    public static void reset() {
+        verdicts.clear();
+    }
+
+    private static Image loadBaseline(String pageType, Path path, List<int[]> ignoreRegions) throws IOException {
+        Image cached = baselines.get(pageType);
+        if (cached != null) {
+            return cached;
+        }
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Image baseline = Image.decode(Files.readAllBytes(path));
+        baseline.blank(ignoreRegions);
+        baselines.put(pageType, baseline);
+        return baseline;
+    }
+
+    // Shard workers share the baselines directory, so a new baseline is moved into place whole.
+    private static void storeBaseline(Path path, byte[] png) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), "baseline", ".tmp");
+        Files.write(temp, png);
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int tileCount(Image image, int tileSize) {
+        return ((image.width + tileSize - 1) / tileSize) * ((image.height + tileSize - 1) / tileSize);
+    }
+
+    // The current capture with differing pixels in red and changed tiles outlined.
+    private static Path writeDiffImage(String pageType, Image current, List<Integer> changedTiles, int tileSize,
+                                       Image baseline) throws IOException {
+        BufferedImage diff = new BufferedImage(current.width, current.height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = current.pixels.clone();
+        int tolerance = ConfigReader.getVisualPixelTolerance();
+        for (int i = 0; i < pixels.length; i++) {
+            if (Image.differs(pixels[i], baseline.pixels[i], tolerance)) {
+                pixels[i] = 0xFF0000;
+            } else {
+                pixels[i] = (pixels[i] >> 1) & 0x7F7F7F;
+            }
+        }
+        diff.setRGB(0, 0, current.width, current.height, pixels, 0, current.width);
+
+        Graphics2D graphics = diff.createGraphics();
+        graphics.setColor(Color.YELLOW);
+        int tilesPerRow = (current.width + tileSize - 1) / tileSize;
+        for (int tile : changedTiles) {
+            graphics.drawRect((tile % tilesPerRow) * tileSize, (tile / tilesPerRow) * tileSize, tileSize - 1, tileSize - 1);
+        }
+        graphics.dispose();
+
+        Path path = Paths.get(ConfigReader.getVisualDiffDir(),
+            pageType + "_" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".png");
+        Files.createDirectories(path.getParent());
+        ImageIO.write(diff, "png", path.toFile());
+        return path;
+    }
+
+    // "x,y,w,h;x,y,w,h" in screenshot pixels.
+    static List<int[]> parseRegions(String spec) {
+        List<int[]> regions = new ArrayList<>();
+        if (spec == null) {
+            return regions;
+        }
+        for (String region : spec.split(";")) {
+            String[] parts = region.trim().split(",");
+            if (parts.length != 4) {
+                continue;
+            }
+            try {
+                regions.add(new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim())});
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring malformed visual ignore region: " + region);
+            }
+        }
+        return regions;
+    }
+
+    static class Image {
+        final int width;
+        final int height;
+        final int[] pixels;
+        private long hash;
+        private boolean hashed;
+
+        Image(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+
+        static Image decode(byte[] png) throws IOException {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image == null) {
+                throw new IOException("Screenshot is not a readable image");
+            }
+            int width = image.getWidth();
+            int height = image.getHeight();
+            return new Image(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+        }
+
+        void blank(List<int[]> regions) {
+            for (int[] region : regions) {
+                int x0 = Math.max(0, region[0]);
+                int y0 = Math.max(0, region[1]);
+                int x1 = Math.min(width, region[0] + region[2]);
+                int y1 = Math.min(height, region[1] + region[3]);
+                for (int y = y0; y < y1; y++) {
+                    Arrays.fill(pixels, y * width + x0, Math.max(y * width + x0, y * width + x1), 0);
+                }
+            }
+        }
+
+        static boolean differs(int a, int b, int tolerance) {
+            return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) > tolerance ||
+                Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) > tolerance ||
+                Math.abs((a & 0xFF) - (b & 0xFF)) > tolerance;
+        }
+
+        // DCT-based perceptual hash: grayscale box-downscale to 32x32, keep the 8x8 low frequencies
+        // (minus the DC term) and set a bit for each coefficient above their median.
+        synchronized long perceptualHash() {
+            if (hashed) {
+                return hash;
+            }
+            double[][] gray = new double[HASH_SIZE][HASH_SIZE];
+            for (int gy = 0; gy < HASH_SIZE; gy++) {
+                int y0 = gy * height / HASH_SIZE;
+                int y1 = Math.max(y0 + 1, (gy + 1) * height / HASH_SIZE);
+                for (int gx = 0; gx < HASH_SIZE; gx++) {
+                    int x0 = gx * width / HASH_SIZE;
+                    int x1 = Math.max(x0 + 1, (gx + 1) * width / HASH_SIZE);
+                    long sum = 0;
+                    int count = 0;
+                    for (int y = y0; y < y1 && y < height; y++) {
+                        for (int x = x0; x < x1 && x < width; x++) {
+                            int p = pixels[y * width + x];
+                            sum += (((p >> 16) & 0xFF) * 299 + ((p >> 8) & 0xFF) * 587 + (p & 0xFF) * 114) / 1000;
+                            count++;
+                        }
+                    }
+                    gray[gy][gx] = count == 0 ? 0 : (double) sum / count;
+                }
+            }
+
+            double[][] rows = new double[HASH_BITS_SIDE][HASH_SIZE];
+            for (int u = 0; u < HASH_BITS_SIDE; u++) {
+                for (int y = 0; y < HASH_SIZE; y++) {
+                    double sum = 0;
+                    for (int x = 0; x < HASH_SIZE; x++) {
+                        sum += gray[y][x] * Math.cos((2 * x + 1) * u * Math.PI / (2 * HASH_SIZE));
+                    }
+                    rows[u][y] = sum;
+                }
+            }
+            double[] coefficients = new double[HASH_BITS_SIDE * HASH_BITS_SIDE];
+            for (int v = 0; v < HASH_BITS_SIDE; v++) {
+                for (int u = 0; u < HASH_BITS_SIDE; u++) {
+                    double sum = 0;
+                    for (int y = 0; y < HASH_SIZE; y++) {
+                        sum += rows[u][y] * Math.cos((2 * y + 1) * v * Math.PI / (2 * HASH_SIZE));
+                    }
+                    coefficients[v * HASH_BITS_SIDE + u] = sum;
+                }
+            }
+
+            double[] sorted = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+            Arrays.sort(sorted);
+            double median = sorted[sorted.length / 2];
+            long bits = 0;
+            for (int i = 1; i < coefficients.length; i++) {
+                if (coefficients[i] > median) {
+                    bits |= 1L << i;
+                }
+            }
+            hash = bits;
+            hashed = true;
+            return hash;
+        }
+    }
+
+    // Splits the tile range in half until it is small enough to diff directly.
+    private static class TileDiff extends RecursiveTask<TileDiff> {
+        final Image baseline;
+        final Image current;
+        final int tileSize;
+        final int fromTile;
+        final int toTile;
+        final int tolerance;
+        final List<Integer> changedTiles = new ArrayList<>();
+        int tiles;
+        long changedPixels;
+
+        TileDiff(Image baseline, Image current, int tileSize, int fromTile, int toTile, int tolerance) {
+            this.baseline = baseline;
+            this.current = current;
+            this.tileSize = tileSize;
+            this.fromTile = fromTile;
+            this.toTile = toTile;
+            this.tolerance = tolerance;
+        }
+
+        @Override
+        protected TileDiff compute() {
+            if (toTile - fromTile > LEAF_TILES) {
+                int middle = (fromTile + toTile) >>> 1;
+                TileDiff left = new TileDiff(baseline, current, tileSize, fromTile, middle, tolerance);
+                TileDiff right = new TileDiff(baseline, current, tileSize, middle, toTile, tolerance);
+                left.fork();
+                right.compute();
+                left.join();
+                changedTiles.addAll(left.changedTiles);
+                changedTiles.addAll(right.changedTiles);
+                tiles = left.tiles + right.tiles;
+                changedPixels = left.changedPixels + right.changedPixels;
+                return this;
+            }
+
+            int width = current.width;
+            int tilesPerRow = (width + tileSize - 1) / tileSize;
+            for (int tile = fromTile; tile < toTile; tile++) {
+                int x0 = (tile % tilesPerRow) * tileSize;
+                int y0 = (tile / tilesPerRow) * tileSize;
+                int x1 = Math.min(width, x0 + tileSize);
+                int y1 = Math.min(current.height, y0 + tileSize);
+                int differing = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        if (baseline.pixels[row + x] != current.pixels[row + x] &&
+                            Image.differs(baseline.pixels[row + x], current.pixels[row + x], tolerance)) {
+                            differing++;
+                        }
+                    }
+                }
+                tiles++;
+                changedPixels += differing;
+                if (differing > (x1 - x0) * (y1 - y0) * TILE_CHANGE_THRESHOLD) {
+                    changedTiles.add(tile);
+                }
+            }
+            return this;
+        }
+    }
+
+    public static class Verdict {
+        public static final String PASS = "PASS";
+        public static final String FAIL = "FAIL";
+        public static final String BASELINE = "BASELINE";
+        public static final String NEW = "NEW";
+        public static final String ERROR = "ERROR";
+
+        public final String pageType;
+        public final String status;
+        public final int hashDistance;
+        public final int changedTiles;
+        public final int totalTiles;
+        public final String imagePath;
+        public final String detail;
+        public long millis;
+
+        Verdict(String pageType, String status, int hashDistance, int changedTiles, int totalTiles,
+                String imagePath, String detail) {
+            this.pageType = pageType;
+            this.status = status;
+            this.hashDistance = hashDistance;
+            this.changedTiles = changedTiles;
+            this.totalTiles = totalTiles;
+            this.imagePath = imagePath;
+            this.detail = detail;
+        }
+
+        public boolean passed() {
+            return PASS.equals(status) || BASELINE.equals(status);
+        }
+
+        String describe() {
+            return pageType + " | " + status + " | pHash distance: " + hashDistance +
+                " | Changed tiles: " + changedTiles + "/" + totalTiles + " | " + detail +
+                (imagePath != null ? " | " + imagePath : "") + " | " + millis + "ms";
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package utils;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class VisualRegressionTest {
+    private static final int RED = 0xFF0000;
+
+    private final Map<String, String> previous = new HashMap<>();
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("visual-test");
+        setProperty("visual.dir", directory.toString());
+        setProperty("visual.updateBaselines", "false");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        for (Map.Entry<String, String> property : previous.entrySet()) {
+            if (property.getValue() == null) {
+                System.clearProperty(property.getKey());
+            } else {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+        }
+        previous.clear();
+        VisualRegression.clearFailures();
+    }
+
+    @Test
+    public void missingBaselineIsStoredButDoesNotPass() throws IOException {
+        VisualRegression.Verdict first = VisualRegression.compare("VisualRegressionTest.missing", png(horizontal(64, 48)));
+        Assert.assertEquals(first.status, VisualRegression.Verdict.NEW);
+        Assert.assertFalse(first.passed());
+        Assert.assertTrue(Files.exists(directory.resolve("baselines").resolve("VisualRegressionTest.missing.png")));
+
+        VisualRegression.Verdict second = VisualRegression.compare("VisualRegressionTest.missing", png(horizontal(64, 48)));
+        Assert.assertEquals(second.status, VisualRegression.Verdict.PASS);
+    }
+
+    @Test
+    public void updatingBaselinesPasses() throws IOException {
+        setProperty("visual.updateBaselines", "true");
+        VisualRegression.Verdict verdict = VisualRegression.compare("VisualRegressionTest.update", png(horizontal(64, 48)));
+        Assert.assertEquals(verdict.status, VisualRegression.Verdict.BASELINE);
+        Assert.assertTrue(verdict.passed());
+    }
+
+    @Test
+    public void changedBlockFailsWithItsTileAndPixelCounts() throws IOException {
+        String page = "VisualRegressionTest.block";
+        baseline(page, horizontal(64, 64));
+        VisualRegression.Verdict verdict = VisualRegression.compare(page, png(withBlock(horizontal(64, 64), 2, 2, 10)));
+        Assert.assertEquals(verdict.status, VisualRegression.Verdict.FAIL);
+        Assert.assertEquals(verdict.changedTiles, 1);
+        Assert.assertEquals(verdict.totalTiles, 4);
+        Assert.assertEquals(verdict.detail, "100 pixels differ");
+        Assert.assertTrue(Files.exists(Paths.get(verdict.imagePath)), "diff image written");
+    }
+
+    @Test
+    public void differencesWithinThePixelTolerancePass() throws IOException {
+        String page = "VisualRegressionTest.tolerance";
+        baseline(page, horizontal(64, 64));
+        BufferedImage brighter = horizontal(64, 64);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                brighter.setRGB(x, y, brighter.getRGB(x, y) + 0x0A0A0A);
+            }
+        }
+        VisualRegression.Verdict verdict = VisualRegression.compare(page, png(brighter));
+        Assert.assertEquals(verdict.status, VisualRegression.Verdict.PASS);
+        Assert.assertEquals(verdict.detail, "no changed tiles");
+    }
+
+    @Test
+    public void changeInsideAnIgnoreRegionPasses() throws IOException {
+        String page = "VisualRegressionTest.ignored";
+        setProperty("visual.ignore." + page, "0,0,16,16");
+        baseline(page, horizontal(64, 64));
+        VisualRegression.Verdict verdict = VisualRegression.compare(page, png(withBlock(horizontal(64, 64), 2, 2, 10)));
+        Assert.assertEquals(verdict.status, VisualRegression.Verdict.PASS);
+
+        VisualRegression.Verdict outside = VisualRegression.compare(page, png(withBlock(horizontal(64, 64), 40, 40, 10)));
+        Assert.assertEquals(outside.status, VisualRegression.Verdict.FAIL);
+    }
+
+    @Test
+    public void sizeChangeIsDecidedByPerceptualHashDistance() throws IOException {
+        String page = "VisualRegressionTest.resized";
+        baseline(page, layout(64, 48, false));
+
+        VisualRegression.Verdict similar = VisualRegression.compare(page, png(layout(80, 60, false)));
+        Assert.assertEquals(similar.status, VisualRegression.Verdict.PASS);
+        Assert.assertEquals(similar.detail, "size changed from 64x48 to 80x60");
+
+        VisualRegression.Verdict different = VisualRegression.compare(page, png(layout(80, 60, true)));
+        Assert.assertEquals(different.status, VisualRegression.Verdict.FAIL);
+        Assert.assertTrue(different.hashDistance > ConfigReader.getVisualMaxHashDistance(), "distance " + different.hashDistance);
+    }
+
+    @Test
+    public void perceptualHashIsStableUnderScalingAndSeparatesLayouts() {
+        long base = image(layout(64, 48, false)).perceptualHash();
+        int same = Long.bitCount(base ^ image(layout(64, 48, false)).perceptualHash());
+        int scaled = Long.bitCount(base ^ image(layout(128, 96, false)).perceptualHash());
+        int mirrored = Long.bitCount(base ^ image(layout(64, 48, true)).perceptualHash());
+        Assert.assertEquals(same, 0);
+        Assert.assertTrue(scaled <= 2, "scaled " + scaled);
+        Assert.assertTrue(mirrored > ConfigReader.getVisualMaxHashDistance(), "mirrored " + mirrored);
+    }
+
+    @Test
+    public void blankClipsRegionsToTheImage() {
+        VisualRegression.Image image = image(horizontal(8, 8));
+        image.blank(List.of(new int[] {6, 6, 10, 10}, new int[] {-4, -4, 5, 5}));
+        Assert.assertEquals(image.pixels[7 * 8 + 7], 0);
+        Assert.assertEquals(image.pixels[0], 0);
+        Assert.assertNotEquals(image.pixels[0 * 8 + 1], 0);
+        Assert.assertNotEquals(image.pixels[5 * 8 + 5], 0);
+    }
+
+    @Test
+    public void malformedIgnoreRegionsAreSkipped() {
+        List<int[]> regions = VisualRegression.parseRegions("0,0,10,10; bad ;1,2,3; 5,5,x,5;20, 20, 5, 5;");
+        Assert.assertEquals(regions.size(), 2);
+        Assert.assertEquals(regions.get(0), new int[] {0, 0, 10, 10});
+        Assert.assertEquals(regions.get(1), new int[] {20, 20, 5, 5});
+        Assert.assertTrue(VisualRegression.parseRegions(null).isEmpty());
+        Assert.assertTrue(VisualRegression.parseRegions("").isEmpty());
+    }
+
+    @Test
+    public void unreadableScreenshotIsRecordedAsAFailure() {
+        WebDriver driver = (WebDriver) java.lang.reflect.Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {WebDriver.class, TakesScreenshot.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getScreenshotAs") && args[0] == OutputType.BYTES) {
+                    return "not an image".getBytes(StandardCharsets.UTF_8);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        VisualRegression.Verdict verdict = VisualRegression.check(driver, "VisualRegressionTest.error");
+        Assert.assertEquals(verdict.status, VisualRegression.Verdict.ERROR);
+        Assert.assertFalse(verdict.passed());
+        List<String> failures = VisualRegression.takeFailures();
+        Assert.assertEquals(failures.size(), 1);
+        Assert.assertTrue(failures.get(0).contains("ERROR"), failures.get(0));
+    }
+
+    private void baseline(String page, BufferedImage image) throws IOException {
+        setProperty("visual.updateBaselines", "true");
+        VisualRegression.compare(page, png(image));
+        System.setProperty("visual.updateBaselines", "false");
+    }
+
+    // Gray levels rising left to right.
+    private static BufferedImage horizontal(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int level = 40 + x * 160 / width;
+                image.setRGB(x, y, level << 16 | level << 8 | level);
+            }
+        }
+        return image;
+    }
+
+    // A page-like layout at any size: dark header, light sidebar on the left, mid-gray content.
+    // mirrored puts the sidebar on the right and the header at the bottom.
+    private static BufferedImage layout(int width, int height, boolean mirrored) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int px = mirrored ? width - 1 - x : x;
+                int py = mirrored ? height - 1 - y : y;
+                int level = py < height / 5 ? 30 : px < width / 4 ? 220 : 120;
+                image.setRGB(x, y, level << 16 | level << 8 | level);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage withBlock(BufferedImage image, int x0, int y0, int size) {
+        for (int y = y0; y < y0 + size; y++) {
+            for (int x = x0; x < x0 + size; x++) {
+                image.setRGB(x, y, RED);
+            }
+        }
+        return image;
+    }
+
+    private static VisualRegression.Image image(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return new VisualRegression.Image(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private void setProperty(String key, String value) {
+        previous.putIfAbsent(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+}